@@ -0,0 +1,30 @@
+#!/usr/bin/env sh
+# Starts a worker node from an extracted jar with an application class-data-sharing archive,
+# building the archive on first use with a training run that exits once the context has
+# refreshed. The training run needs the same DB and AWS environment as a normal start: it
+# connects to the database, but Flyway migrations and partition maintenance are turned off
+# so it changes nothing there.
+#
+# Usage: scripts/worker-cds.sh [extra JVM options]
+set -e
+
+cd "$(dirname "$0")/.."
+JAR_NAME=backend-0.0.1-SNAPSHOT.jar
+CDS_DIR=target/cds
+
+if [ ! -f "$CDS_DIR/backend.jsa" ]; then
+	[ -f "target/$JAR_NAME" ] || ./mvnw -q -DskipTests package
+	rm -rf "$CDS_DIR"
+	java -Djarmode=tools -jar "target/$JAR_NAME" extract --destination "$CDS_DIR"
+	java -XX:ArchiveClassesAtExit="$CDS_DIR/backend.jsa" \
+		-Dspring.context.exit=onRefresh \
+		-Dspring.flyway.enabled=false \
+		-Drupanta.jobs.partitions.maintenance-enabled=false \
+		-Dspring.profiles.active=worker \
+		-jar "$CDS_DIR/$JAR_NAME"
+fi
+
+exec java -XX:SharedArchiveFile="$CDS_DIR/backend.jsa" \
+	-Dspring.profiles.active=worker \
+	"$@" \
+	-jar "$CDS_DIR/$JAR_NAME"
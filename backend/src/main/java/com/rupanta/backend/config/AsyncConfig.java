@@ -0,0 +1,45 @@
+package com.rupanta.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+	@Value("${rupanta.worker.concurrency:0}")
+	private int workerConcurrency;
+
+	@Value("${rupanta.worker.adaptive.enabled:true}")
+	private boolean adaptiveConcurrency;
+
+	@Value("${rupanta.worker.adaptive.max:0}")
+	private int adaptiveMax;
+
+	// The core size is the number of jobs running at once (the queue is unbounded, so threads
+	// above it are never started). The adaptive limiter moves it between its bounds at runtime,
+	// the max size is only the ceiling it may grow to.
+	@Bean
+	public ThreadPoolTaskExecutor imageProcessingExecutor(){
+		int cores = Runtime.getRuntime().availableProcessors();
+		int poolSize = workerConcurrency > 0 ? workerConcurrency : cores;
+		int maxPoolSize = adaptiveConcurrency ? Math.max(poolSize, adaptiveMax > 0 ? adaptiveMax : 2 * cores) : poolSize;
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(maxPoolSize);
+		executor.setThreadNamePrefix("image-worker-");
+		return executor;
+	}
+
+	// Runs what a synchronous submission does once its job settles (status lookup, opening the
+	// output). The job completes on an image worker thread, which shouldn't be held up by that.
+	@Bean
+	public ThreadPoolTaskExecutor jobCompletionExecutor(){
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(Math.max(2, Runtime.getRuntime().availableProcessors()));
+		executor.setThreadNamePrefix("job-completion-");
+		return executor;
+	}
+}
@@ -3,29 +3,68 @@ package com.rupanta.backend.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+import java.net.URI;
+
 @Configuration
 public class AwsConfig {
 
 	@Value("${aws.region}")
 	private String awsRegion;
 
+	@Value("${aws.s3.endpoint:}")
+	private String s3Endpoint;
+
+	@Value("${aws.credentials.access-key:}")
+	private String accessKey;
+
+	@Value("${aws.credentials.secret-key:}")
+	private String secretKey;
+
 	@Bean
 	public S3Client s3Client(){
-		return S3Client.builder().region(Region.of(awsRegion))
-				.credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-				.build();
+		S3ClientBuilder builder = S3Client.builder().region(Region.of(awsRegion))
+				.credentialsProvider(credentialsProvider());
+
+		if (StringUtils.hasText(s3Endpoint)) {
+			builder.endpointOverride(URI.create(s3Endpoint))
+					.serviceConfiguration(pathStyleAccess());
+		}
+		return builder.build();
 	}
 
 	@Bean
 	public S3Presigner s3Presigner(){
-		return S3Presigner.builder()
+		S3Presigner.Builder builder = S3Presigner.builder()
 				.region(Region.of(awsRegion))
-				.credentialsProvider(EnvironmentVariableCredentialsProvider.create())
-				.build();
+				.credentialsProvider(credentialsProvider());
+
+		if (StringUtils.hasText(s3Endpoint)) {
+			builder.endpointOverride(URI.create(s3Endpoint))
+					.serviceConfiguration(pathStyleAccess());
+		}
+		return builder.build();
+	}
+
+	private AwsCredentialsProvider credentialsProvider(){
+		if (StringUtils.hasText(accessKey)) {
+			return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+		}
+		return EnvironmentVariableCredentialsProvider.create();
+	}
+
+	// S3-compatible stand-ins don't resolve bucket.host style addresses
+	private S3Configuration pathStyleAccess(){
+		return S3Configuration.builder().pathStyleAccessEnabled(true).build();
 	}
 }
@@ -14,6 +14,8 @@ public class SecurityConfig {
 		http.csrf(csrf -> csrf.disable())
 			.authorizeHttpRequests(auth -> auth
 					.requestMatchers("/api/v1/**").permitAll()
+					// Liveness and readiness probes come from the orchestrator without credentials
+					.requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
 					.anyRequest().authenticated()
 			);
 
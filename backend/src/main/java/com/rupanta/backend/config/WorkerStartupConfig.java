@@ -0,0 +1,22 @@
+package com.rupanta.backend.config;
+
+import com.rupanta.backend.BackendApplication;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class WorkerStartupConfig {
+
+	// spring.main.lazy-initialization (worker profile) is only meant for framework beans nothing
+	// uses at boot. The application's own beans and whatever they depend on are created before
+	// the node reports ready: controllers have to take requests right away, migrations have to
+	// run at boot and @Scheduled methods are only registered on created beans.
+	@Bean
+	public static LazyInitializationExcludeFilter eagerStartupBeans(){
+		String applicationPackage = BackendApplication.class.getPackageName();
+		return (beanName, beanDefinition, beanType) -> beanType != null
+				&& (FlywayMigrationInitializer.class.isAssignableFrom(beanType) || beanType.getPackageName().startsWith(applicationPackage));
+	}
+}
@@ -1,46 +1,127 @@
 package com.rupanta.backend.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rupanta.backend.dto.ImageProcessRequest;
+import com.rupanta.backend.dto.JobDownload;
 import com.rupanta.backend.dto.JobStatusResponse;
 import com.rupanta.backend.dto.JobSubmissionResponse;
+import com.rupanta.backend.dto.StoredObject;
+import com.rupanta.backend.enums.JobStatus;
 import com.rupanta.backend.service.ImageJobService;
+import com.rupanta.backend.service.SyncSubmissionAdmission;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/jobs")
 @RequiredArgsConstructor
+@Slf4j
 public class ImageProcessingController {
 
+	private static final int MAX_PARAMS_BYTES = 64 * 1024;
+
 	private final ImageJobService imageJobService;
+	private final SyncSubmissionAdmission syncSubmissionAdmission;
+	private final ThreadPoolTaskExecutor jobCompletionExecutor;
 	private final ObjectMapper objectMapper;
 
+	@Value("${rupanta.upload.max-file-size:50MB}")
+	private DataSize maxFileSize;
+
+	@Value("${rupanta.upload.max-request-size:52MB}")
+	private DataSize maxRequestSize;
+
+	/**
+	 * Multipart parsing by the servlet container is disabled, so the "image" part is read
+	 * straight off the request and streamed to storage instead of being spooled to disk first.
+	 * Parts may come in any order; "params" is small and read into memory.
+	 *
+	 * With {@code wait} (milliseconds), a job cheap enough to finish in that time is waited for
+	 * without holding the request thread, and answered with its final JobStatusResponse, or with
+	 * the output itself when {@code inline} is set. Jobs that aren't admitted or don't finish in
+	 * time get the usual 202.
+	 */
 	@PostMapping(consumes = {"multipart/form-data"})
-	public ResponseEntity<JobSubmissionResponse> processImage(
-			@RequestPart("image") MultipartFile image,
-			@RequestPart("params") String paramsJson){
+	public CompletableFuture<ResponseEntity<?>> processImage(HttpServletRequest request,
+			@RequestParam(name = "wait", required = false) Long waitMillis,
+			@RequestParam(name = "inline", defaultValue = "false") boolean inline) throws IOException {
+		JakartaServletFileUpload<?, ?> upload = new JakartaServletFileUpload<>();
+		upload.setFileSizeMax(maxFileSize.toBytes());
+		upload.setSizeMax(maxRequestSize.toBytes());
 
-		if (image.isEmpty()){
-			return ResponseEntity.badRequest().build();
+		StoredObject rawImage = null;
+		String paramsJson = null;
+
+		try {
+			FileItemInputIterator items = upload.getItemIterator(request);
+			while (items.hasNext()) {
+				FileItemInput item = items.next();
+				try (InputStream in = item.getInputStream()) {
+					if ("image".equals(item.getFieldName()) && !item.isFormField() && rawImage == null) {
+						rawImage = imageJobService.storeRawImage(item.getName(), item.getContentType(), in);
+					} else if ("params".equals(item.getFieldName()) && paramsJson == null) {
+						byte[] params = in.readNBytes(MAX_PARAMS_BYTES + 1);
+						if (params.length > MAX_PARAMS_BYTES) {
+							return CompletableFuture.completedFuture(discardAndRespond(rawImage, HttpStatus.PAYLOAD_TOO_LARGE));
+						}
+						paramsJson = new String(params, StandardCharsets.UTF_8);
+					}
+				}
+			}
+		} catch (FileUploadSizeException e) {
+			log.warn("Rejected upload over the size limit: {}", e.getMessage());
+			return CompletableFuture.completedFuture(discardAndRespond(rawImage, HttpStatus.PAYLOAD_TOO_LARGE));
 		}
 
-		try{
-			ImageProcessRequest params = objectMapper.readValue(paramsJson, ImageProcessRequest.class);
-			UUID jobId = imageJobService.createAndSubmitJob(image, params);
-			JobSubmissionResponse response = new JobSubmissionResponse(jobId);
+		if (rawImage == null || rawImage.getSize() == 0 || paramsJson == null){
+			return CompletableFuture.completedFuture(discardAndRespond(rawImage, HttpStatus.BAD_REQUEST));
+		}
 
-			return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+		ImageProcessRequest params;
+		try{
+			params = objectMapper.readValue(paramsJson, ImageProcessRequest.class);
 		} catch (JsonProcessingException e) {
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			return CompletableFuture.completedFuture(discardAndRespond(rawImage, HttpStatus.BAD_REQUEST));
 		}
+
+		UUID jobId = imageJobService.createAndSubmitJob(rawImage, params);
+		ResponseEntity<?> accepted = new ResponseEntity<>(new JobSubmissionResponse(jobId), HttpStatus.ACCEPTED);
+
+		Optional<Duration> wait = waitMillis == null ? Optional.empty() : syncSubmissionAdmission.admit(rawImage, params, waitMillis);
+		if (wait.isEmpty()) {
+			return CompletableFuture.completedFuture(accepted);
+		}
+
+		return imageJobService.awaitCompletion(jobId, wait.get())
+				.<ResponseEntity<?>>thenApplyAsync(result -> result.<ResponseEntity<?>>map(status -> settledResponse(status, inline)).orElse(accepted), jobCompletionExecutor)
+				.whenComplete((response, error) -> syncSubmissionAdmission.release());
 	}
 
 	@GetMapping("/{jobId}")
@@ -48,4 +129,39 @@ public class ImageProcessingController {
 		JobStatusResponse statusResponse = imageJobService.getJobStatus(jobId);
 		return ResponseEntity.ok(statusResponse);
 	}
+
+	private ResponseEntity<?> settledResponse(JobStatusResponse status, boolean inline) {
+		if (!inline || status.getStatus() != JobStatus.COMPLETED) {
+			return ResponseEntity.ok(status);
+		}
+
+		Optional<JobDownload> download = imageJobService.getJobDownload(status.getJobId());
+		if (download.isEmpty()) {
+			return ResponseEntity.ok(status);
+		}
+		if (download.get().getCachedFile() == null) {
+			return ResponseEntity.status(HttpStatus.SEE_OTHER).location(URI.create(download.get().getDownloadUrl())).build();
+		}
+
+		// Opened now so an eviction before the body is written can't take the file away. If it
+		// was already evicted, the download endpoint falls back to S3.
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(download.get().getCachedFile(), StandardOpenOption.READ);
+			return ResponseEntity.ok()
+					.contentType(MediaType.parseMediaType(download.get().getContentType()))
+					.contentLength(channel.size())
+					.body(new InputStreamResource(Channels.newInputStream(channel)));
+		} catch (IOException e) {
+			IOUtils.closeQuietly(channel);
+			return ResponseEntity.status(HttpStatus.SEE_OTHER).location(URI.create("/api/v1/jobs/" + status.getJobId() + "/download")).build();
+		}
+	}
+
+	private <T> ResponseEntity<T> discardAndRespond(StoredObject rawImage, HttpStatus status) {
+		if (rawImage != null) {
+			imageJobService.discardRawImage(rawImage);
+		}
+		return ResponseEntity.status(status).build();
+	}
 }
@@ -0,0 +1,122 @@
+package com.rupanta.backend.controller;
+
+import com.rupanta.backend.dto.JobDownload;
+import com.rupanta.backend.service.ImageJobService;
+import com.rupanta.backend.service.LocalOutputCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+public class JobDownloadController {
+
+	// Request attributes Tomcat's NIO connector reads to send a file with sendfile after the servlet returns
+	private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	private final ImageJobService imageJobService;
+	private final LocalOutputCache localOutputCache;
+
+	/**
+	 * Serves a completed job's output from this node's cache when it has it, with single-range
+	 * support and without copying the bytes through the JVM. Otherwise redirects to S3.
+	 *
+	 * Tomcat opens the file for sendfile by name after this returns. The cache keeps evicted
+	 * files on disk for a grace period, so an eviction in that gap doesn't fail the response.
+	 */
+	@GetMapping("/{jobId}/download")
+	public void downloadOutput(@PathVariable UUID jobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Optional<JobDownload> download = Optional.empty();
+		for (int attempt = 0; attempt < 2; attempt++) {
+			download = imageJobService.getJobDownload(jobId);
+			if (download.isEmpty()) {
+				response.sendError(HttpStatus.CONFLICT.value(), "Job has not completed");
+				return;
+			}
+
+			if (download.get().getCachedFile() == null) {
+				break;
+			}
+
+			try {
+				sendFile(download.get(), request, response);
+				return;
+			} catch (NoSuchFileException e) {
+				// Gone between the lookup and opening it, the next lookup normally misses
+			}
+		}
+		response.sendRedirect(download.get().getDownloadUrl());
+	}
+
+	private void sendFile(JobDownload download, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Path file = download.getCachedFile();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			long start = 0;
+			long end = length - 1;
+
+			String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+			if (rangeHeader != null) {
+				try {
+					List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+					// Multiple ranges are answered with the whole file, which the spec allows
+					if (ranges.size() == 1) {
+						start = ranges.get(0).getRangeStart(length);
+						end = ranges.get(0).getRangeEnd(length);
+						// getRangeStart doesn't check a first position past the end of the file
+						if (start >= length || start > end) {
+							throw new IllegalArgumentException("Range not satisfiable for length " + length + ": " + rangeHeader);
+						}
+						response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+						response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+					}
+				} catch (IllegalArgumentException e) {
+					response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+					response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+					return;
+				}
+			}
+
+			long count = end - start + 1;
+			response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+			response.setContentType(download.getContentType());
+			response.setContentLengthLong(count);
+
+			if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+				request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+				request.setAttribute(SENDFILE_START, start);
+				request.setAttribute(SENDFILE_END, end + 1);
+			} else {
+				WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+				long position = start;
+				while (position <= end) {
+					position += channel.transferTo(position, end + 1 - position, out);
+				}
+			}
+			localOutputCache.recordBytesServed(count);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.rupanta.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Where to get a completed job's output: a file cached on this node, if any, and a presigned S3
+ * URL. The URL is always set, so a cached file that goes away before it's sent still has a fallback.
+ */
+@Data
+@AllArgsConstructor
+public class JobDownload {
+	private Path cachedFile;
+	private String downloadUrl;
+	private String contentType;
+}
@@ -0,0 +1,12 @@
+package com.rupanta.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StoredObject {
+	private String key;
+	private long size;
+	private String sha256;
+}
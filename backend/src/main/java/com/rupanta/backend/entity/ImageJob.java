@@ -3,8 +3,8 @@ package com.rupanta.backend.entity;
 import com.rupanta.backend.enums.JobStatus;
 import jakarta.persistence.*;
 import lombok.Data;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.PartitionKey;
 import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
@@ -15,7 +15,7 @@ import java.util.UUID;
 @Data
 public class ImageJob {
 	@Id
-	@GeneratedValue(strategy = GenerationType.UUID)
+	@GeneratedJobId
 	private UUID id;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -29,6 +29,12 @@ public class ImageJob {
 	@Column(name = "raw_file_key")
 	private String rawFileKey;
 
+	@Column(name = "raw_file_size")
+	private Long rawFileSize;
+
+	@Column(name = "raw_file_sha256", length = 64)
+	private String rawFileSha256;
+
 	@Column(name = "processed_file_key")
 	private String processedFileKey;
 
@@ -36,8 +42,9 @@ public class ImageJob {
 	@Column(name = "job_parameters", columnDefinition = "jsonb")
 	private String jobParameters;
 
-	@CreationTimestamp
-	@Column(name = "created_at", updatable = false)
+	// Set together with the id, and part of every update so it only touches one partition
+	@PartitionKey
+	@Column(name = "created_at", nullable = false, updatable = false)
 	private Instant createdAt;
 
 	@Column(name = "completed_at")
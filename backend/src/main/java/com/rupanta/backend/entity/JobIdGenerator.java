@@ -0,0 +1,51 @@
+package com.rupanta.backend.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Generates job ids as UUIDv7, whose first 48 bits are the creation time in Unix milliseconds,
+ * and sets the job's created_at to that same instant. A lookup by id can then name the
+ * partition of image_jobs it needs instead of probing all of them. Ids of jobs created before
+ * this are random (v4) and carry no time.
+ */
+public class JobIdGenerator implements BeforeExecutionGenerator {
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+		Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+		((ImageJob) owner).setCreatedAt(createdAt);
+		return newId(createdAt);
+	}
+
+	@Override
+	public EnumSet<EventType> getEventTypes() {
+		return EventTypeSets.INSERT_ONLY;
+	}
+
+	public static UUID newId(Instant createdAt) {
+		long random = RANDOM.nextLong();
+		long mostSignificant = (createdAt.toEpochMilli() << 16) | 0x7000L | (random & 0x0FFFL);
+		long leastSignificant = (RANDOM.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+		return new UUID(mostSignificant, leastSignificant);
+	}
+
+	/**
+	 * The created_at a job id was generated with, or empty for ids that don't carry one.
+	 */
+	public static Optional<Instant> createdAtOf(UUID id) {
+		if (id.version() != 7) return Optional.empty();
+		return Optional.of(Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16));
+	}
+}
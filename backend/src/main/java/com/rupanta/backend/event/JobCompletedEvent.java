@@ -0,0 +1,14 @@
+package com.rupanta.backend.event;
+
+import com.rupanta.backend.enums.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class JobCompletedEvent {
+	private UUID jobId;
+	private JobStatus status;
+}
@@ -1,5 +1,7 @@
 package com.rupanta.backend.listener;
 
+import com.rupanta.backend.event.JobCompletedEvent;
+import com.rupanta.backend.service.JobCompletionNotifier;
 import com.rupanta.backend.worker.ImageProcessingWorker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,10 +17,16 @@ import java.util.UUID;
 public class JobEventListener {
 
 	private final ImageProcessingWorker imageProcessingWorker;
+	private final JobCompletionNotifier jobCompletionNotifier;
 
 	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
 	public void onJobCreated(UUID jobId){
 		log.info("Transaction commited for the job: {}. Triggering async worker.", jobId);
 		imageProcessingWorker.processImageJob(jobId);
 	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+	public void onJobCompleted(JobCompletedEvent event){
+		jobCompletionNotifier.complete(event.getJobId(), event.getStatus());
+	}
 }
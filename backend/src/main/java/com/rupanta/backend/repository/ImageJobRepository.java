@@ -1,12 +1,26 @@
 package com.rupanta.backend.repository;
 
 import com.rupanta.backend.entity.ImageJob;
+import com.rupanta.backend.entity.JobIdGenerator;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ImageJobRepository extends JpaRepository<ImageJob, UUID> {
-	//
+
+	Optional<ImageJob> findByIdAndCreatedAt(UUID id, Instant createdAt);
+
+	/**
+	 * Looks a job up in the one partition its id's timestamp points to. Use this rather than
+	 * findById, which has to probe every monthly partition. Older random ids still fall back to it.
+	 */
+	default Optional<ImageJob> findJob(UUID id) {
+		return JobIdGenerator.createdAtOf(id)
+				.map(createdAt -> findByIdAndCreatedAt(id, createdAt))
+				.orElseGet(() -> findById(id));
+	}
 }
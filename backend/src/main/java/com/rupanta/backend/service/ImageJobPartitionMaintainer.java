@@ -0,0 +1,88 @@
+package com.rupanta.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of image_jobs created ahead of time and, when a
+ * retention period is configured, drops the partitions that fell out of it.
+ *
+ * Every node runs this at startup, so runs are serialized with an advisory lock. A failed
+ * run is logged and retried at the next one, new rows land in the default partition meanwhile.
+ * Creating a month's partition moves its rows out of the default partition, so each run also
+ * creates the partitions for any months found there.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageJobPartitionMaintainer {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+
+	@Value("${rupanta.jobs.partitions.maintenance-enabled:true}")
+	private boolean maintenanceEnabled;
+
+	@Value("${rupanta.jobs.partitions.months-ahead:2}")
+	private int monthsAhead;
+
+	@Value("${rupanta.jobs.retention-months:0}")
+	private int retentionMonths;
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(cron = "0 0 3 * * *", zone = "UTC")
+	public void maintainPartitions(){
+		if (!maintenanceEnabled) return;
+
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				// Concurrent CREATE TABLE ... PARTITION OF from nodes booting together can fail on pg_type
+				jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('rupanta.image_jobs.partitions'))");
+				ensurePartitions();
+			});
+		} catch (DataAccessException | TransactionException e) {
+			log.error("Could not maintain image_jobs partitions, retrying at the next run: {}", e.getMessage());
+		}
+	}
+
+	private void ensurePartitions() {
+		LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+
+		List<LocalDate> strandedMonths = jdbcTemplate.queryForList(
+				"SELECT DISTINCT date_trunc('month', created_at AT TIME ZONE 'UTC')::date FROM image_jobs_default", LocalDate.class);
+		for (LocalDate month : strandedMonths) {
+			String partition = jdbcTemplate.queryForObject("SELECT create_image_jobs_partition(?)", String.class, Date.valueOf(month));
+			log.warn("Moved image_jobs rows of {} out of the default partition into {}", month, partition);
+		}
+
+		for (int i = 0; i <= monthsAhead; i++) {
+			String partition = jdbcTemplate.queryForObject("SELECT create_image_jobs_partition(?)", String.class, Date.valueOf(currentMonth.plusMonths(i)));
+			log.debug("Ensured image_jobs partition {}", partition);
+		}
+
+		Long leftInDefault = jdbcTemplate.queryForObject("SELECT count(*) FROM image_jobs_default", Long.class);
+		if (leftInDefault != null && leftInDefault > 0) {
+			log.error("image_jobs_default still holds {} rows, partition creation for their months will fail until they are moved", leftInDefault);
+		}
+
+		if (retentionMonths > 0) {
+			LocalDate cutoff = currentMonth.minusMonths(retentionMonths);
+			Integer dropped = jdbcTemplate.queryForObject("SELECT drop_image_jobs_partitions_before(?)", Integer.class, Date.valueOf(cutoff));
+			log.info("Dropped {} image_jobs partitions older than {}", dropped, cutoff);
+		}
+	}
+}
@@ -1,13 +1,31 @@
 package com.rupanta.backend.service;
 
 import com.rupanta.backend.dto.ImageProcessRequest;
+import com.rupanta.backend.dto.JobDownload;
 import com.rupanta.backend.dto.JobStatusResponse;
-import org.springframework.web.multipart.MultipartFile;
+import com.rupanta.backend.dto.StoredObject;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface ImageJobService {
-	UUID createAndSubmitJob(MultipartFile file, ImageProcessRequest params);
+	StoredObject storeRawImage(String originalFilename, String contentType, InputStream inputStream) throws IOException;
+
+	void discardRawImage(StoredObject rawImage);
+
+	UUID createAndSubmitJob(StoredObject rawImage, ImageProcessRequest params);
 
 	JobStatusResponse getJobStatus(UUID jobId);
+
+	/**
+	 * Completes with the final status once the job has COMPLETED or FAILED, or with empty when
+	 * that takes longer than the timeout.
+	 */
+	CompletableFuture<Optional<JobStatusResponse>> awaitCompletion(UUID jobId, Duration timeout);
+
+	Optional<JobDownload> getJobDownload(UUID jobId);
 }
@@ -3,20 +3,30 @@ package com.rupanta.backend.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rupanta.backend.dto.ImageProcessRequest;
+import com.rupanta.backend.dto.JobDownload;
 import com.rupanta.backend.dto.JobStatusResponse;
+import com.rupanta.backend.dto.StoredObject;
 import com.rupanta.backend.entity.ImageJob;
 import com.rupanta.backend.entity.User;
 import com.rupanta.backend.enums.JobStatus;
 import com.rupanta.backend.repository.ImageJobRepository;
 import com.rupanta.backend.repository.UserRepository;
 import com.rupanta.backend.worker.ImageProcessingWorker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -25,16 +35,32 @@ public class ImageJobServiceImpl implements ImageJobService{
 	private final ImageJobRepository imageJobRepository;
 	private final UserRepository userRepository;
 	private final S3StorageService s3StorageService;
+	private final LocalOutputCache localOutputCache;
 //	private final ImageProcessingWorker imageProcessingWorker;
 	private final JobEventPublisher jobEventPublisher;
+	private final JobCompletionNotifier jobCompletionNotifier;
+	private final ThreadPoolTaskExecutor jobCompletionExecutor;
 	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
 
 	private static final String RAW_UPLOADS_FOLDER = "raw_uploads";
 
+	@Override
+	public StoredObject storeRawImage(String originalFilename, String contentType, InputStream inputStream) throws IOException {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		StoredObject rawImage = s3StorageService.uploadStream(RAW_UPLOADS_FOLDER, originalFilename, contentType, inputStream);
+		sample.stop(meterRegistry.timer("rupanta.job.stage", "stage", "ingest"));
+		return rawImage;
+	}
+
+	@Override
+	public void discardRawImage(StoredObject rawImage) {
+		s3StorageService.deleteFile(rawImage.getKey());
+	}
+
 	@Override
 	@Transactional
-	public UUID createAndSubmitJob(MultipartFile file, ImageProcessRequest params) {
-		String rawFileKey = s3StorageService.uploadFile(RAW_UPLOADS_FOLDER, file);
+	public UUID createAndSubmitJob(StoredObject rawImage, ImageProcessRequest params) {
 		String paramsJson;
 
 		try {
@@ -45,7 +71,9 @@ public class ImageJobServiceImpl implements ImageJobService{
 
 		ImageJob newJob = new ImageJob();
 		newJob.setUser(getOrCreateAnonymousUser());
-		newJob.setRawFileKey(rawFileKey);
+		newJob.setRawFileKey(rawImage.getKey());
+		newJob.setRawFileSize(rawImage.getSize());
+		newJob.setRawFileSha256(rawImage.getSha256());
 		newJob.setJobParameters(paramsJson);
 		newJob.setStatus(JobStatus.PENDING);
 		ImageJob savedJob = imageJobRepository.save(newJob);
@@ -57,7 +85,7 @@ public class ImageJobServiceImpl implements ImageJobService{
 
 	@Override
 	public JobStatusResponse getJobStatus(UUID jobId) {
-		ImageJob job = imageJobRepository.findById(jobId)
+		ImageJob job = imageJobRepository.findJob(jobId)
 				.orElseThrow(() -> new EntityNotFoundException("Job not found with ID: " + jobId));
 
 		String downloadUrl = null;
@@ -72,6 +100,47 @@ public class ImageJobServiceImpl implements ImageJobService{
 				.build();
 	}
 
+	@Override
+	public CompletableFuture<Optional<JobStatusResponse>> awaitCompletion(UUID jobId, Duration timeout) {
+		CompletableFuture<JobStatus> completion = jobCompletionNotifier.register(jobId);
+
+		// The job may have settled before the waiter was registered
+		JobStatusResponse current;
+		try {
+			current = getJobStatus(jobId);
+		} catch (RuntimeException e) {
+			jobCompletionNotifier.unregister(jobId);
+			throw e;
+		}
+		if (current.getStatus() == JobStatus.COMPLETED || current.getStatus() == JobStatus.FAILED){
+			jobCompletionNotifier.unregister(jobId);
+			return CompletableFuture.completedFuture(Optional.of(current));
+		}
+
+		// Completed by the worker's after-commit listener, so the lookup moves off its thread
+		return completion.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+				.thenApplyAsync(status -> Optional.of(getJobStatus(jobId)), jobCompletionExecutor)
+				.exceptionally(e -> {
+					jobCompletionNotifier.unregister(jobId);
+					return Optional.empty();
+				});
+	}
+
+	@Override
+	public Optional<JobDownload> getJobDownload(UUID jobId) {
+		ImageJob job = imageJobRepository.findJob(jobId)
+				.orElseThrow(() -> new EntityNotFoundException("Job not found with ID: " + jobId));
+
+		if (job.getStatus() != JobStatus.COMPLETED){
+			return Optional.empty();
+		}
+
+		String key = job.getProcessedFileKey();
+		String contentType = key.toLowerCase().endsWith(".png") ? "image/png" : "image/jpeg";
+		// Presigning is only a local signature, so the fallback URL costs no round trip
+		return Optional.of(new JobDownload(localOutputCache.get(key).orElse(null), s3StorageService.generatedPresignedUrl(key), contentType));
+	}
+
 	private User getOrCreateAnonymousUser(){
 		return userRepository.findByEmail("anonymous@rupanta.com").orElseGet(() -> {
 			User anonymousUser = new User();
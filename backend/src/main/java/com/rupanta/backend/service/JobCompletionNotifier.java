@@ -0,0 +1,32 @@
+package com.rupanta.backend.service;
+
+import com.rupanta.backend.enums.JobStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands the final status of a job to a request waiting for it on this node.
+ */
+@Component
+public class JobCompletionNotifier {
+
+	private final ConcurrentHashMap<UUID, CompletableFuture<JobStatus>> waiters = new ConcurrentHashMap<>();
+
+	public CompletableFuture<JobStatus> register(UUID jobId){
+		return waiters.computeIfAbsent(jobId, id -> new CompletableFuture<>());
+	}
+
+	public void unregister(UUID jobId){
+		waiters.remove(jobId);
+	}
+
+	public void complete(UUID jobId, JobStatus status){
+		CompletableFuture<JobStatus> waiter = waiters.remove(jobId);
+		if (waiter != null) {
+			waiter.complete(status);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.rupanta.backend.service;
 
+import com.rupanta.backend.enums.JobStatus;
+import com.rupanta.backend.event.JobCompletedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
@@ -18,4 +20,9 @@ public class JobEventPublisher {
 		log.info("Publishing job created event for jobId: {}", jobId);
 		applicationEventPublisher.publishEvent(jobId);
 	}
+
+	public void publishJobCompletedEvent(final UUID jobId, final JobStatus status){
+		log.info("Publishing job completed event for jobId: {} with status {}", jobId, status);
+		applicationEventPublisher.publishEvent(new JobCompletedEvent(jobId, status));
+	}
 }
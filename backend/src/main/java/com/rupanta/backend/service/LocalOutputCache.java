@@ -0,0 +1,222 @@
+package com.rupanta.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Size-bounded LRU cache of recently processed outputs on this node's disk, keyed by their
+ * S3 key. The worker hands over its output file after the upload, so hot downloads right after
+ * completion can be served locally instead of from S3. The index lives in memory.
+ *
+ * Each process keeps its files in its own subdirectory of the configured directory, holding a
+ * lock on a marker file inside it. Only subdirectories with that marker and no live owner are
+ * removed at startup, so a shared or misconfigured directory loses nothing the cache didn't
+ * create, and processes on one host don't wipe each other's caches.
+ *
+ * Evicted files stay on disk for a grace period before they are deleted. Tomcat opens a file
+ * for sendfile by name only after the download endpoint has returned, so deleting it right
+ * away could fail a response whose headers are already sent. Once opened, a file survives
+ * its deletion.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocalOutputCache {
+
+	private final MeterRegistry meterRegistry;
+
+	@Value("${rupanta.output.cache.enabled:true}")
+	private boolean enabled;
+
+	@Value("${rupanta.output.cache.directory:${java.io.tmpdir}/rupanta-output-cache}")
+	private String directory;
+
+	@Value("${rupanta.output.cache.max-size:2GB}")
+	private DataSize maxSize;
+
+	@Value("${rupanta.output.cache.eviction-grace-period:30s}")
+	private Duration evictionGracePeriod;
+
+	private static final String CACHE_DIRECTORY_PREFIX = "cache-";
+	private static final String OWNER_LOCK_FILE = ".rupanta-output-cache.lock";
+
+	private Path cacheDirectory;
+	private FileChannel ownerLockChannel;
+
+	// Access-ordered, so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long cachedBytes;
+	// Evicted keys and when, in eviction order, waiting out the grace period before their files are deleted
+	private final LinkedHashMap<String, Long> evicted = new LinkedHashMap<>();
+
+	private Counter hits;
+	private Counter misses;
+	private Counter bytesServed;
+
+	@PostConstruct
+	void init() throws IOException {
+		hits = meterRegistry.counter("rupanta.output.cache.requests", "result", "hit");
+		misses = meterRegistry.counter("rupanta.output.cache.requests", "result", "miss");
+		bytesServed = Counter.builder("rupanta.output.cache.bytes_served").baseUnit("bytes").register(meterRegistry);
+		Gauge.builder("rupanta.output.cache.hit_ratio", this, LocalOutputCache::hitRatio).register(meterRegistry);
+		Gauge.builder("rupanta.output.cache.size", this, LocalOutputCache::cachedBytes).baseUnit("bytes").register(meterRegistry);
+
+		if (enabled) {
+			Path base = Files.createDirectories(Path.of(directory));
+			removeAbandonedCaches(base);
+			cacheDirectory = Files.createTempDirectory(base, CACHE_DIRECTORY_PREFIX);
+			// Locked before it gets the name other processes look for, so they never see it unowned
+			Path pendingLockFile = cacheDirectory.resolve(OWNER_LOCK_FILE + ".pending");
+			ownerLockChannel = FileChannel.open(pendingLockFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			ownerLockChannel.lock();
+			Files.move(pendingLockFile, cacheDirectory.resolve(OWNER_LOCK_FILE), StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	@PreDestroy
+	void close() {
+		if (cacheDirectory == null) return;
+		IOUtils.closeQuietly(ownerLockChannel);
+		FileUtils.deleteQuietly(cacheDirectory.toFile());
+	}
+
+	/**
+	 * Moves the file into the cache. Never fails the caller; a file that can't be cached is left
+	 * where it was.
+	 */
+	public void put(String key, File file) {
+		if (!enabled || file.length() > maxSize.toBytes()) return;
+
+		Path target = pathFor(key);
+		synchronized (this) {
+			// Back in the cache, so its file must outlive an earlier eviction
+			evicted.remove(key);
+		}
+		try {
+			Files.move(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			log.warn("Could not cache output {}: {}", key, e.getMessage());
+			return;
+		}
+
+		synchronized (this) {
+			evicted.remove(key); // In case it was evicted again during the move
+			Long previous = entries.put(key, target.toFile().length());
+			cachedBytes += target.toFile().length() - (previous == null ? 0 : previous);
+			evictOverBudget();
+		}
+	}
+
+	/**
+	 * Returns the cached file for the key, if this node has it.
+	 */
+	public Optional<Path> get(String key) {
+		boolean cached;
+		synchronized (this) {
+			cached = enabled && entries.containsKey(key);
+			if (cached) entries.get(key); // Marks the entry as most recently used
+		}
+
+		if (cached && Files.exists(pathFor(key))) {
+			hits.increment();
+			return Optional.of(pathFor(key));
+		}
+		misses.increment();
+		return Optional.empty();
+	}
+
+	public void recordBytesServed(long bytes) {
+		bytesServed.increment(bytes);
+	}
+
+	@Scheduled(fixedDelayString = "${rupanta.output.cache.eviction-grace-period:30s}")
+	synchronized void deleteEvictedFiles() {
+		long now = System.nanoTime();
+		Iterator<Map.Entry<String, Long>> eldest = evicted.entrySet().iterator();
+		while (eldest.hasNext()) {
+			Map.Entry<String, Long> entry = eldest.next();
+			if (now - entry.getValue() < evictionGracePeriod.toNanos()) break;
+			eldest.remove();
+			FileUtils.deleteQuietly(pathFor(entry.getKey()).toFile());
+		}
+	}
+
+	private void evictOverBudget() {
+		Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+		while (cachedBytes > maxSize.toBytes() && eldest.hasNext()) {
+			Map.Entry<String, Long> entry = eldest.next();
+			eldest.remove();
+			cachedBytes -= entry.getValue();
+			evicted.remove(entry.getKey());
+			evicted.put(entry.getKey(), System.nanoTime());
+		}
+	}
+
+	// Left behind by processes that didn't shut down cleanly. The lock is released when its owner exits.
+	private void removeAbandonedCaches(Path base) throws IOException {
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(base, CACHE_DIRECTORY_PREFIX + "*")) {
+			for (Path child : children) {
+				Path lockFile = child.resolve(OWNER_LOCK_FILE);
+				if (!Files.isDirectory(child) || !Files.exists(lockFile)) continue;
+
+				try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE);
+					 FileLock lock = channel.tryLock()) {
+					if (lock == null) continue;
+				} catch (OverlappingFileLockException e) {
+					continue; // Owned by another cache in this JVM
+				} catch (IOException e) {
+					log.warn("Could not check output cache directory {}: {}", child, e.getMessage());
+					continue;
+				}
+				log.info("Removing abandoned output cache directory {}", child);
+				FileUtils.deleteQuietly(child.toFile());
+			}
+		}
+	}
+
+	// Keys carry the user's file name, so only the extension is kept on disk
+	private Path pathFor(String key) {
+		String name = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+		String extension = FilenameUtils.getExtension(key);
+		return cacheDirectory.resolve(extension.isEmpty() ? name : name + "." + extension);
+	}
+
+	private double hitRatio() {
+		double total = hits.count() + misses.count();
+		return total == 0 ? 0 : hits.count() / total;
+	}
+
+	private synchronized double cachedBytes() {
+		return cachedBytes;
+	}
+}
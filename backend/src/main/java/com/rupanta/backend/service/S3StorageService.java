@@ -1,27 +1,43 @@
 package com.rupanta.backend.service;
 
+import com.rupanta.backend.dto.StoredObject;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.ResponseBytes;
+import org.springframework.util.unit.DataSize;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -36,41 +52,113 @@ public class S3StorageService {
 	@Value("${aws.s3.bucket-name}")
 	private String bucketName;
 
-	public String uploadFile(String folder, MultipartFile file){
-		String ogFileName = file.getOriginalFilename();
-		String uniqueKey = folder + "/" + UUID.randomUUID().toString() + "-" + ogFileName;
+	@Value("${aws.s3.multipart-part-size:8MB}")
+	private DataSize multipartPartSize;
 
-		PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+	private static final DataSize MIN_MULTIPART_PART_SIZE = DataSize.ofMegabytes(5); // S3 rejects smaller parts except the last
+	private static final DataSize MAX_MULTIPART_PART_SIZE = DataSize.ofMegabytes(512);
+	private static final int INITIAL_PART_BUFFER_SIZE = 64 * 1024;
+
+	@PostConstruct
+	void validatePartSize() {
+		if (multipartPartSize.compareTo(MIN_MULTIPART_PART_SIZE) < 0 || multipartPartSize.compareTo(MAX_MULTIPART_PART_SIZE) > 0) {
+			throw new IllegalStateException("aws.s3.multipart-part-size must be between " + MIN_MULTIPART_PART_SIZE.toMegabytes()
+					+ "MB and " + MAX_MULTIPART_PART_SIZE.toMegabytes() + "MB, was " + multipartPartSize);
+		}
+	}
+
+	/**
+	 * Streams the input to S3 without spooling it locally, hashing and counting it on the way.
+	 * Anything larger than one part goes through a multipart upload, so at most one part is
+	 * held in memory per upload, and a small upload only holds about its own size.
+	 */
+	public StoredObject uploadStream(String folder, String originalFilename, String contentType, InputStream inputStream) throws IOException {
+		String uniqueKey = folder + "/" + UUID.randomUUID().toString() + "-" + originalFilename;
+		int partSize = (int) multipartPartSize.toBytes();
+
+		MessageDigest digest = newSha256Digest();
+		DigestInputStream in = new DigestInputStream(inputStream, digest);
+		PartBuffer buffer = new PartBuffer(partSize);
+		int read = buffer.fill(in);
+
+		if (read < partSize) {
+			PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+					.bucket(bucketName)
+					.key(uniqueKey)
+					.contentType(contentType)
+					.build();
+
+			s3Client.putObject(putObjectRequest, buffer.requestBody());
+			log.info("Successfully uploaded file {} ({} bytes) to S3 bucket {}", uniqueKey, read, bucketName);
+			return new StoredObject(uniqueKey, read, HexFormat.of().formatHex(digest.digest()));
+		}
+
+		String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
 				.bucket(bucketName)
 				.key(uniqueKey)
-				.contentType(file.getContentType())
-				.build();
+				.contentType(contentType)
+				.build()).uploadId();
 
 		try {
-			s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
-			log.info("Successfully uploaded file {} to S3 bucket {}", uniqueKey, bucketName);
-			return uniqueKey;
-		} catch (IOException e) {
-			log.error("Error uploading file to S3: {}", e.getMessage());
-			throw new RuntimeException("Failed to upload file to S3", e);
+			List<CompletedPart> parts = new ArrayList<>();
+			long size = 0;
+
+			while (read > 0) {
+				int partNumber = parts.size() + 1;
+				UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+						.bucket(bucketName)
+						.key(uniqueKey)
+						.uploadId(uploadId)
+						.partNumber(partNumber)
+						.contentLength((long) read)
+						.build();
+
+				String eTag = s3Client.uploadPart(uploadPartRequest, buffer.requestBody()).eTag();
+				parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+				size += read;
+				read = buffer.fill(in);
+			}
+
+			s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+					.bucket(bucketName)
+					.key(uniqueKey)
+					.uploadId(uploadId)
+					.multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+					.build());
+			log.info("Successfully uploaded file {} ({} bytes, {} parts) to S3 bucket {}", uniqueKey, size, parts.size(), bucketName);
+			return new StoredObject(uniqueKey, size, HexFormat.of().formatHex(digest.digest()));
+		} catch (IOException | RuntimeException e) {
+			log.error("Error streaming file {} to S3, aborting multipart upload: {}", uniqueKey, e.getMessage());
+			s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+					.bucket(bucketName)
+					.key(uniqueKey)
+					.uploadId(uploadId)
+					.build());
+			throw e;
 		}
 	}
 
-	public File downloadFile(String key) throws IOException{
+	public void deleteFile(String key){
+		s3Client.deleteObject(DeleteObjectRequest.builder()
+				.bucket(bucketName)
+				.key(key)
+				.build());
+		log.info("Deleted file {} from S3 bucket {}", key, bucketName);
+	}
+
+	/**
+	 * Streams the object to a new file in the directory, so its size doesn't have to fit in the heap.
+	 */
+	public File downloadFile(String key, Path directory) throws IOException{
 		GetObjectRequest getObjectRequest = GetObjectRequest.builder()
 				.bucket(bucketName)
 				.key(key)
 				.build();
 
-		ResponseBytes<GetObjectResponse> objectBytes = s3Client.getObjectAsBytes(getObjectRequest);
-		byte[] data = objectBytes.asByteArray();
-
-		File tempFile = File.createTempFile("rupanta-", ".tmp");
-		try (OutputStream os = new FileOutputStream(tempFile)){
-			os.write(data);
-		}
-		log.info("Successfully downloaded file {} from S3 to temporary path {}", key, tempFile.getAbsolutePath());
-		return tempFile;
+		Path target = directory.resolve("rupanta-" + UUID.randomUUID() + ".tmp");
+		s3Client.getObject(getObjectRequest, ResponseTransformer.toFile(target));
+		log.info("Successfully downloaded file {} from S3 to {}", key, target);
+		return target.toFile();
 	}
 
 	public String generatedPresignedUrl(String key){
@@ -110,4 +198,45 @@ public class S3StorageService {
 			throw new RuntimeException("Failed to upload processed file to S3", e);
 		}
 	}
+
+	private MessageDigest newSha256Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * Holds one part of an upload. Starts small and doubles only as far as the input goes, up
+	 * to the part size, then is reused for the following parts.
+	 */
+	private static final class PartBuffer {
+
+		private final int partSize;
+		private byte[] bytes;
+		private int length;
+
+		PartBuffer(int partSize) {
+			this.partSize = partSize;
+			this.bytes = new byte[Math.min(INITIAL_PART_BUFFER_SIZE, partSize)];
+		}
+
+		int fill(InputStream in) throws IOException {
+			length = 0;
+			while (length < partSize) {
+				if (length == bytes.length) {
+					bytes = Arrays.copyOf(bytes, (int) Math.min(partSize, 2L * bytes.length));
+				}
+				int read = in.readNBytes(bytes, length, bytes.length - length);
+				length += read;
+				if (length < bytes.length) break; // End of input
+			}
+			return length;
+		}
+
+		RequestBody requestBody() {
+			return RequestBody.fromInputStream(new ByteArrayInputStream(bytes, 0, length), length);
+		}
+	}
 }
@@ -0,0 +1,91 @@
+package com.rupanta.backend.service;
+
+import com.rupanta.backend.dto.ImageProcessRequest;
+import com.rupanta.backend.dto.StoredObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which submissions may wait for their result. A job is admitted when its estimated
+ * time to finish fits the wait the client asked for (capped by max-wait) and a waiter slot
+ * is free; everything else gets the usual 202 right away.
+ *
+ * The estimate is the job's own processing cost plus the time for the jobs ahead of it on this
+ * node to free a worker slot: every full round of busy or queued jobs in imageProcessingExecutor
+ * counts as one queued-job-cost.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SyncSubmissionAdmission {
+
+	// Target size mode encodes up to ten times: both quality bounds plus the binary search
+	private static final int TARGET_SIZE_ENCODES = 10;
+
+	private final ThreadPoolTaskExecutor imageProcessingExecutor;
+
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	@Value("${rupanta.jobs.sync.max-wait:10s}")
+	private Duration maxWait;
+
+	@Value("${rupanta.jobs.sync.max-waiters:64}")
+	private int maxWaiters;
+
+	@Value("${rupanta.jobs.sync.base-cost:150ms}")
+	private Duration baseCost;
+
+	@Value("${rupanta.jobs.sync.cost-per-mb:200ms}")
+	private Duration costPerMb;
+
+	@Value("${rupanta.jobs.sync.queued-job-cost:1s}")
+	private Duration queuedJobCost;
+
+	/**
+	 * Returns how long to wait for the job, or empty when it should not be waited for. An admitted
+	 * caller has to {@link #release()} once it stops waiting.
+	 */
+	public Optional<Duration> admit(StoredObject rawImage, ImageProcessRequest params, long requestedWaitMillis){
+		Duration wait = Duration.ofMillis(Math.min(requestedWaitMillis, maxWait.toMillis()));
+		Duration estimate = estimateQueueDelay().plus(estimateCost(rawImage, params));
+
+		if (wait.isZero() || wait.isNegative() || estimate.compareTo(wait) > 0) {
+			log.debug("Not waiting for job: estimated {} ms, wait {} ms", estimate.toMillis(), wait.toMillis());
+			return Optional.empty();
+		}
+
+		if (waiters.incrementAndGet() > maxWaiters) {
+			waiters.decrementAndGet();
+			return Optional.empty();
+		}
+		return Optional.of(wait);
+	}
+
+	public void release(){
+		waiters.decrementAndGet();
+	}
+
+	// Jobs picked up from the queue in order, core-size at a time
+	private Duration estimateQueueDelay(){
+		int ahead = imageProcessingExecutor.getQueueSize() + imageProcessingExecutor.getActiveCount();
+		int slots = Math.max(1, imageProcessingExecutor.getCorePoolSize());
+		return queuedJobCost.multipliedBy(ahead / slots);
+	}
+
+	private Duration estimateCost(StoredObject rawImage, ImageProcessRequest params){
+		ImageProcessRequest.CompressionParams compression = params.getCompression();
+		boolean targetSizeMode = compression != null && "jpg".equalsIgnoreCase(params.getOutputFormat())
+				&& compression.getMinSize() != null && compression.getMaxSize() != null;
+
+		double megabytes = rawImage.getSize() / (1024.0 * 1024.0);
+		long encodeMillis = (long) (costPerMb.toMillis() * megabytes * (targetSizeMode ? TARGET_SIZE_ENCODES : 1));
+		return baseCost.plusMillis(encodeMillis);
+	}
+}
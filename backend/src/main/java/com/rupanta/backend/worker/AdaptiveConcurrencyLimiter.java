@@ -0,0 +1,165 @@
+package com.rupanta.backend.worker;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * AIMD controller for the number of jobs running at once on this node. After each job that
+ * actually ran gm, it compares the recent processing latency per input MB with a baseline
+ * kept for that render mode, since a target-size search runs many encodes where a resize runs
+ * one, and checks CPU load. The baseline is a low percentile over a window of recent jobs, so
+ * a handful of unusually fast or slow jobs doesn't move it. While latency and CPU are healthy
+ * and jobs are queueing, the limit grows by about one per round of jobs. When latency
+ * stretches, the CPU saturates or gm times out, the limit is cut by the backoff ratio, at most
+ * once per cooldown. The limit is applied as the core size of imageProcessingExecutor,
+ * bounded by min and the executor's max size.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+	private static final int WINDOW_SIZE = 100;
+	private static final int MIN_SAMPLES = 20; // per mode, before its latency is judged at all
+	private static final int RECENT_SAMPLES = 5;
+	private static final double BASELINE_PERCENTILE = 0.25;
+
+	private final ThreadPoolTaskExecutor imageProcessingExecutor;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${rupanta.worker.adaptive.enabled:true}")
+	private boolean enabled;
+
+	@Value("${rupanta.worker.adaptive.min:1}")
+	private int minLimit;
+
+	@Value("${rupanta.worker.adaptive.target-cpu:0.85}")
+	private double targetCpu;
+
+	@Value("${rupanta.worker.adaptive.latency-tolerance:2.0}")
+	private double latencyTolerance;
+
+	@Value("${rupanta.worker.adaptive.backoff:0.75}")
+	private double backoff;
+
+	@Value("${rupanta.worker.adaptive.cooldown:5s}")
+	private Duration cooldown;
+
+	DoubleSupplier cpuLoad = AdaptiveConcurrencyLimiter::systemCpuLoad;
+
+	private final Map<String, LatencyWindow> windows = new HashMap<>();
+	private double limit;
+	private long lastDecreaseNanos;
+
+	@PostConstruct
+	void init() {
+		limit = imageProcessingExecutor.getCorePoolSize();
+		lastDecreaseNanos = System.nanoTime() - cooldown.toNanos();
+		Gauge.builder("rupanta.worker.concurrency.limit", imageProcessingExecutor, ThreadPoolTaskExecutor::getCorePoolSize)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Feeds the processing time of a finished job that ran gm, normalized by its input size so
+	 * a mix of small and large images doesn't read as congestion. Jobs whose input was returned
+	 * as is must not be fed, their near-zero time says nothing about the node.
+	 */
+	public synchronized void onJobProcessed(String mode, long processingNanos, long inputBytes) {
+		if (!enabled) return;
+
+		double megabytes = Math.max(inputBytes, 64 * 1024) / (1024.0 * 1024.0);
+		LatencyWindow window = windows.computeIfAbsent(mode, m -> new LatencyWindow());
+		window.add(processingNanos / 1_000_000.0 / megabytes);
+
+		if (window.isJudged() && window.recent() > latencyTolerance * window.baseline()) {
+			decrease("latency");
+		} else if (cpuLoad.getAsDouble() > targetCpu) {
+			decrease("cpu");
+		} else if (imageProcessingExecutor.getQueueSize() > 0) {
+			limit = Math.min(imageProcessingExecutor.getMaxPoolSize(), limit + 1 / limit);
+			apply("increase", "headroom");
+		}
+	}
+
+	public synchronized void onGmTimeout() {
+		if (!enabled) return;
+		decrease("gm_timeout");
+	}
+
+	private void decrease(String reason) {
+		long now = System.nanoTime();
+		if (now - lastDecreaseNanos < cooldown.toNanos()) return;
+
+		lastDecreaseNanos = now;
+		limit = Math.max(minLimit, limit * backoff);
+		apply("decrease", reason);
+	}
+
+	private void apply(String direction, String reason) {
+		int current = imageProcessingExecutor.getCorePoolSize();
+		int next = (int) limit;
+		if (next == current) return;
+
+		imageProcessingExecutor.setCorePoolSize(next);
+		meterRegistry.counter("rupanta.worker.concurrency.adjustments", "direction", direction, "reason", reason).increment();
+		log.info("Worker concurrency {} from {} to {} ({})", direction, current, next, reason);
+	}
+
+	private static double systemCpuLoad() {
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+			return sunOs.getCpuLoad(); // Negative when not available yet, which never trips the target
+		}
+		return -1;
+	}
+
+	/**
+	 * Latency samples (ms per input MB) of the last jobs of one render mode.
+	 */
+	private static final class LatencyWindow {
+
+		private final double[] samples = new double[WINDOW_SIZE];
+		private int count;
+		private int next;
+
+		void add(double sample) {
+			samples[next] = sample;
+			next = (next + 1) % WINDOW_SIZE;
+			count = Math.min(count + 1, WINDOW_SIZE);
+		}
+
+		boolean isJudged() {
+			return count >= MIN_SAMPLES;
+		}
+
+		double baseline() {
+			double[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			return sorted[(int) (BASELINE_PERCENTILE * (count - 1))];
+		}
+
+		// Median of the latest samples, one slow job alone doesn't count as congestion
+		double recent() {
+			double[] latest = new double[RECENT_SAMPLES];
+			for (int i = 0; i < RECENT_SAMPLES; i++) {
+				latest[i] = samples[Math.floorMod(next - 1 - i, WINDOW_SIZE)];
+			}
+			Arrays.sort(latest);
+			return latest[RECENT_SAMPLES / 2];
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.rupanta.backend.worker;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs gm with per-process resource limits. Pixel caches that don't fit in the memory and
+ * map limits spill to disk in the job workspace instead of pushing the host into swap, and
+ * the OpenMP thread count is split between the concurrent workers so the total stays at the
+ * core count.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GraphicsMagickExecutor {
+
+	private static final long OUTPUT_DRAIN_MILLIS = 1000;
+
+	private final ThreadPoolTaskExecutor imageProcessingExecutor;
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+	@Value("${rupanta.gm.limits.memory:256MB}")
+	private DataSize memoryLimit;
+
+	@Value("${rupanta.gm.limits.map:512MB}")
+	private DataSize mapLimit;
+
+	@Value("${rupanta.gm.limits.disk:4GB}")
+	private DataSize diskLimit;
+
+	@Value("${rupanta.gm.limits.threads:0}")
+	private int threadLimit;
+
+	@Value("${rupanta.gm.timeout:2m}")
+	private Duration timeout;
+
+	public void convert(List<String> arguments, Path workspace) throws IOException, InterruptedException {
+		int threads = threadsPerProcess();
+
+		List<String> command = new ArrayList<>();
+		command.add("gm");
+		command.add("convert");
+		addLimit(command, "Memory", memoryLimit.toBytes());
+		addLimit(command, "Map", mapLimit.toBytes());
+		addLimit(command, "Disk", diskLimit.toBytes());
+		addLimit(command, "Threads", threads);
+		command.addAll(arguments);
+
+		runProcess("GraphicsMagick", command, Map.of(
+				"MAGICK_TMPDIR", workspace.toAbsolutePath().toString(),
+				"OMP_NUM_THREADS", String.valueOf(threads)));
+	}
+
+	/**
+	 * Runs a helper image tool the same way gm is run: output logged, bounded runtime and a
+	 * non-zero exit reported as a failure.
+	 */
+	void runProcess(String tool, List<String> command, Map<String, String> environment) throws IOException, InterruptedException {
+		log.info("{} command to be executed: {}", tool, String.join(" ", command));
+
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.redirectErrorStream(true);
+		processBuilder.environment().putAll(environment);
+		Process process = processBuilder.start();
+
+		// Drained on its own thread: a hung tool never closes its output, so reading it here
+		// would block before the timeout below is ever checked
+		Thread outputLogger = new Thread(() -> logOutput(tool, process), tool + "-output");
+		outputLogger.setDaemon(true);
+		outputLogger.start();
+
+		boolean finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		if (!finished) {
+			process.descendants().forEach(ProcessHandle::destroyForcibly);
+			process.destroyForcibly();
+			concurrencyLimiter.onGmTimeout();
+			throw new RuntimeException(tool + " process timed out.");
+		}
+		outputLogger.join(OUTPUT_DRAIN_MILLIS);
+
+		if (process.exitValue() != 0) {
+			throw new RuntimeException(tool + " process failed with exit code " + process.exitValue());
+		}
+	}
+
+	private void logOutput(String tool, Process process) {
+		try (var reader = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				log.info("{} output: {}", tool, line);
+			}
+		} catch (IOException e) {
+			// Closed when a timed-out process is killed
+		}
+	}
+
+	private int threadsPerProcess() {
+		if (threadLimit > 0) return threadLimit;
+		int cores = Runtime.getRuntime().availableProcessors();
+		return Math.max(1, cores / imageProcessingExecutor.getCorePoolSize());
+	}
+
+	private void addLimit(List<String> command, String type, long value) {
+		if (value <= 0) return; // Leave GM's default for this resource
+		command.add("-limit");
+		command.add(type);
+		command.add(String.valueOf(value));
+	}
+}
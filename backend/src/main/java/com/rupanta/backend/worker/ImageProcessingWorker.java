@@ -6,11 +6,16 @@ import com.rupanta.backend.entity.ImageJob;
 import com.rupanta.backend.enums.JobStatus;
 import com.rupanta.backend.exception.CompressionException;
 import com.rupanta.backend.repository.ImageJobRepository;
+import com.rupanta.backend.service.JobEventPublisher;
+import com.rupanta.backend.service.LocalOutputCache;
 import com.rupanta.backend.service.S3StorageService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.FileUtils;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,11 +23,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -31,81 +37,129 @@ public class ImageProcessingWorker {
 
 	private final ImageJobRepository imageJobRepository;
 	private final S3StorageService s3StorageService;
+	private final LocalOutputCache localOutputCache;
+	private final JobEventPublisher jobEventPublisher;
 	private final ObjectMapper objectMapper;
+	private final GraphicsMagickExecutor graphicsMagickExecutor;
+	private final OutputOptimizer outputOptimizer;
+	private final MeterRegistry meterRegistry;
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
 	private static final String PROCESSED_FILES_FOLDER = "processed-files";
 	private static final int MAX_COMPRESSION_ATTEMPTS = 8; // GM quality is 0-100, binary search is fast.
+	private static final String STAGE_TIMER = "rupanta.job.stage";
+	private static final String FAILURE_COUNTER = "rupanta.job.failures";
+	private static final String TARGET_SIZE_MODE = "target_size";
+	private static final String STANDARD_MODE = "standard";
+	private static final String BYTES_SAVED_SUMMARY = "rupanta.output.optimization.bytes_saved";
 
-	@Async
+	@Async("imageProcessingExecutor")
 	@Transactional
 	public void processImageJob(UUID jobId) {
 		log.info("STARTING GM processing for job: {}", jobId);
 
-		ImageJob job = imageJobRepository.findById(jobId).orElseThrow(() -> new EntityNotFoundException("Job not found: " + jobId));
+		ImageJob job = imageJobRepository.findJob(jobId).orElseThrow(() -> new EntityNotFoundException("Job not found: " + jobId));
 		job.setStatus(JobStatus.PROCESSING);
 		imageJobRepository.save(job);
+		if (job.getCreatedAt() != null) {
+			meterRegistry.timer(STAGE_TIMER, "stage", "queue").record(Duration.between(job.getCreatedAt(), Instant.now()));
+		}
 
 		File inputFile = null;
 		File outputFile = null;
+		Path workspace = null;
+		String stage = "download";
 
 		try {
-			inputFile = s3StorageService.downloadFile(job.getRawFileKey());
-			ImageProcessRequest params = objectMapper.readValue(job.getJobParameters(), ImageProcessRequest.class);
-			String outputExtension = params.getOutputFormat() != null ? params.getOutputFormat().toLowerCase() : "jpg";
-			ImageProcessRequest.CompressionParams compression = params.getCompression();
-
-			boolean needsProcessing = true;
-
-			// Check if file already meets size requirements
-			if (compression != null && compression.getMinSize() != null && compression.getMaxSize() != null) {
-				long minBytes = (long) (compression.getMinSize() * getMultiplier(compression.getUnit()));
-				long maxBytes = (long) (compression.getMaxSize() * getMultiplier(compression.getUnit()));
-				long currentSize = inputFile.length();
-
-				if (currentSize >= minBytes && currentSize <= maxBytes) {
-					log.info("File size ({}) is already within the target range [{}, {}]. Skipping processing.", currentSize, minBytes, maxBytes);
-					outputFile = inputFile;
-					needsProcessing = false;
-				}
-			}
+			Timer.Sample stageSample = Timer.start(meterRegistry);
+			workspace = Files.createTempDirectory("rupanta-job-");
+			inputFile = s3StorageService.downloadFile(job.getRawFileKey(), workspace);
+			recordStage(stage, stageSample);
 
-			if (needsProcessing) {
-				if (compression != null && "jpg".equalsIgnoreCase(outputExtension) && compression.getMinSize() != null && compression.getMaxSize() != null) {
-					// Target Size Mode: Binary search for optimal quality
-					long minBytes = (long) (compression.getMinSize() * getMultiplier(compression.getUnit()));
-					long maxBytes = (long) (compression.getMaxSize() * getMultiplier(compression.getUnit()));
-					outputFile = findOptimalQuality(params, inputFile, minBytes, maxBytes);
-				} else {
-					// Standard Mode: Resize, crop, quality %, or format change
-					outputFile = Files.createTempFile("rupanta-out-", "." + outputExtension).toFile();
-					List<String> command = buildGraphicsMagickCommand(params, inputFile.getAbsolutePath(), outputFile.getAbsolutePath());
-					executeCommand(command);
-				}
+			stage = "process";
+			stageSample = Timer.start(meterRegistry);
+			ImageProcessRequest params = objectMapper.readValue(job.getJobParameters(), ImageProcessRequest.class);
+			outputFile = render(params, inputFile, workspace, true);
+			long processingNanos = recordStage(stage, stageSample);
+			if (!outputFile.equals(inputFile)) {
+				concurrencyLimiter.onJobProcessed(renderMode(params), processingNanos, inputFile.length());
 			}
 
+			stage = "upload";
+			stageSample = Timer.start(meterRegistry);
 			String processedFileKey = s3StorageService.uploadFile(PROCESSED_FILES_FOLDER, outputFile, params.getOutputFormat());
+			recordStage(stage, stageSample);
+			localOutputCache.put(processedFileKey, outputFile);
 			job.setProcessedFileKey(processedFileKey);
 			job.setStatus(JobStatus.COMPLETED);
 			job.setCompletedAt(Instant.now());
 			log.info("SUCCESSFULLY processed job: {}", jobId);
 
 		} catch (Exception e) {
-			log.error("FAILED to process job: {}. Reason: {}", jobId, e.getMessage());
+			log.error("FAILED to process job: {} during {}. Reason: {}", jobId, stage, e.getMessage());
+			meterRegistry.counter(FAILURE_COUNTER, "stage", stage).increment();
 			job.setStatus(JobStatus.FAILED);
 		} finally {
 			imageJobRepository.save(job);
-			if (inputFile != null && !inputFile.equals(outputFile)) {
-//				cleanup(inputFile);
+			jobEventPublisher.publishJobCompletedEvent(jobId, job.getStatus());
+			// Input, intermediate and output files all live in the workspace (the output was moved to the cache)
+			cleanupWorkspace(workspace);
+		}
+	}
+
+	/**
+	 * Produces the output for the request inside the workspace. Returns the input itself when it
+	 * already meets the requested size. Also used to warm up fresh worker nodes, which pass
+	 * recordMetrics = false so synthetic images stay out of the output metrics.
+	 */
+	File render(ImageProcessRequest params, File inputFile, Path workspace, boolean recordMetrics) throws IOException, InterruptedException, CompressionException {
+		String outputExtension = params.getOutputFormat() != null ? params.getOutputFormat().toLowerCase() : "jpg";
+		ImageProcessRequest.CompressionParams compression = params.getCompression();
+
+		File outputFile = null;
+		boolean needsProcessing = true;
+
+		// Check if file already meets size requirements
+		if (compression != null && compression.getMinSize() != null && compression.getMaxSize() != null) {
+			long minBytes = (long) (compression.getMinSize() * getMultiplier(compression.getUnit()));
+			long maxBytes = (long) (compression.getMaxSize() * getMultiplier(compression.getUnit()));
+			long currentSize = inputFile.length();
+
+			if (currentSize >= minBytes && currentSize <= maxBytes) {
+				log.info("File size ({}) is already within the target range [{}, {}]. Skipping processing.", currentSize, minBytes, maxBytes);
+				outputFile = inputFile;
+				needsProcessing = false;
 			}
-//			cleanup(outputFile);
 		}
+
+		if (needsProcessing) {
+			if (TARGET_SIZE_MODE.equals(renderMode(params))) {
+				// Target Size Mode: Binary search for optimal quality
+				long minBytes = (long) (compression.getMinSize() * getMultiplier(compression.getUnit()));
+				long maxBytes = (long) (compression.getMaxSize() * getMultiplier(compression.getUnit()));
+				outputFile = findOptimalQuality(params, inputFile, minBytes, maxBytes, workspace, recordMetrics);
+			} else {
+				// Standard Mode: Resize, crop, quality %, or format change
+				outputFile = Files.createTempFile(workspace, "rupanta-out-", "." + outputExtension).toFile();
+				List<String> arguments = buildGraphicsMagickArguments(params, inputFile.getAbsolutePath(), outputFile.getAbsolutePath());
+				graphicsMagickExecutor.convert(arguments, workspace);
+				long bytesSaved = outputOptimizer.optimize(outputFile, outputExtension, workspace);
+				if (recordMetrics) recordBytesSaved(outputExtension, bytesSaved);
+			}
+		}
+
+		return outputFile;
 	}
 
-	private List<String> buildGraphicsMagickCommand(ImageProcessRequest params, String inputPath, String outputPath) {
-		List<String> command = new ArrayList<>();
-		command.add("gm");
-		command.add("convert");
+	private String renderMode(ImageProcessRequest params) {
+		ImageProcessRequest.CompressionParams compression = params.getCompression();
+		String outputExtension = params.getOutputFormat() != null ? params.getOutputFormat() : "jpg";
+		boolean targetSize = compression != null && "jpg".equalsIgnoreCase(outputExtension) && compression.getMinSize() != null && compression.getMaxSize() != null;
+		return targetSize ? TARGET_SIZE_MODE : STANDARD_MODE;
+	}
 
+	private List<String> buildGraphicsMagickArguments(ImageProcessRequest params, String inputPath, String outputPath) {
+		List<String> command = new ArrayList<>();
 		command.add(inputPath);
 
 		if (params.getDpi() != null && params.getDpi() > 0) {
@@ -145,18 +199,22 @@ public class ImageProcessingWorker {
 		return command;
 	}
 
-	private File findOptimalQuality(ImageProcessRequest params, File inputFile, long minBytes, long maxBytes) throws IOException, InterruptedException, CompressionException {
+	private File findOptimalQuality(ImageProcessRequest params, File inputFile, long minBytes, long maxBytes, Path workspace, boolean recordMetrics) throws IOException, InterruptedException, CompressionException {
 		int lowQ = 0, highQ = 100, optimalQ = -1;
 		File optimalFile = null;
+		long optimalFileBytesSaved = 0;
 
-		File bestQualityFile = runGmCompression(params, inputFile, 100);
+		// Sizes are measured after output optimization, which is what gets stored and served
+		File bestQualityFile = runGmCompression(params, inputFile, 100, workspace);
+		outputOptimizer.optimize(bestQualityFile, "jpg", workspace);
 		long sizeAtBestQuality = bestQualityFile.length();
 		if (sizeAtBestQuality < minBytes) {
 			cleanup(bestQualityFile);
 			throw new CompressionException("Image is too simple.", sizeAtBestQuality, -1, minBytes, maxBytes);
 		}
 
-		File worstQualityFile = runGmCompression(params, inputFile, 0);
+		File worstQualityFile = runGmCompression(params, inputFile, 0, workspace);
+		outputOptimizer.optimize(worstQualityFile, "jpg", workspace);
 		long sizeAtWorstQuality = worstQualityFile.length();
 		if (sizeAtWorstQuality > maxBytes) {
 			cleanup(bestQualityFile);
@@ -170,18 +228,21 @@ public class ImageProcessingWorker {
 
 		for (int i = 0; i < MAX_COMPRESSION_ATTEMPTS; i++) {
 			int currentQ = (lowQ + highQ) / 2;
-			File tempFile = runGmCompression(params, inputFile, currentQ);
+			File tempFile = runGmCompression(params, inputFile, currentQ, workspace);
+			long bytesSaved = outputOptimizer.optimize(tempFile, "jpg", workspace);
 			long currentSizeBytes = tempFile.length();
 			log.info("Attempt {}: Trying quality q={}, size={} bytes. Target: [{}, {}]", i + 1, currentQ, currentSizeBytes, minBytes, maxBytes);
 
 			if (currentSizeBytes >= minBytes && currentSizeBytes <= maxBytes) {
 				log.info("SUCCESS: Found optimal quality q={}.", currentQ);
 				if (optimalFile != null) cleanup(optimalFile);
+				if (recordMetrics) recordBytesSaved("jpg", bytesSaved);
 				return tempFile;
 			} else if (currentSizeBytes < minBytes) {
 				lowQ = currentQ + 1;
 				if (optimalFile != null) cleanup(optimalFile);
 				optimalFile = tempFile;
+				optimalFileBytesSaved = bytesSaved;
 			} else { // currentSizeBytes > maxBytes
 				highQ = currentQ - 1;
 				cleanup(tempFile);
@@ -191,48 +252,36 @@ public class ImageProcessingWorker {
 
 		if (optimalFile != null && optimalFile.length() <= maxBytes) {
 			log.warn("Could not find perfect match. Using best effort (under max size).");
+			if (recordMetrics) recordBytesSaved("jpg", optimalFileBytesSaved);
 			return optimalFile;
 		}
 
 		throw new CompressionException("Could not meet target size.", sizeAtBestQuality, sizeAtWorstQuality, minBytes, maxBytes);
 	}
 
-	private File runGmCompression(ImageProcessRequest params, File inputFile, int quality) throws IOException, InterruptedException {
-		File tempFile = Files.createTempFile("rupanta-gm-run-", ".jpg").toFile();
-		List<String> command = buildGraphicsMagickCommand(params, inputFile.getAbsolutePath(), tempFile.getAbsolutePath());
+	private File runGmCompression(ImageProcessRequest params, File inputFile, int quality, Path workspace) throws IOException, InterruptedException {
+		File tempFile = Files.createTempFile(workspace, "rupanta-gm-run-", ".jpg").toFile();
+		List<String> command = buildGraphicsMagickArguments(params, inputFile.getAbsolutePath(), tempFile.getAbsolutePath());
 
 		// Insert the quality flag before the output path
 		int outputPathIndex = command.size() - 1;
 		command.add(outputPathIndex, "-quality");
 		command.add(outputPathIndex + 1, String.valueOf(quality));
 
-		executeCommand(command);
+		graphicsMagickExecutor.convert(command, workspace);
 		return tempFile;
 	}
 
-	private void executeCommand(List<String> command) throws IOException, InterruptedException {
-		log.info("GM command to be executed: {}", String.join(" ", command));
-
-		ProcessBuilder processBuilder = new ProcessBuilder(command);
-		processBuilder.redirectErrorStream(true);
-		Process process = processBuilder.start();
-
-		try (var reader = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				log.info("GM output: {}", line);
-			}
-		}
-
-		boolean finished = process.waitFor(2, TimeUnit.MINUTES);
-		if (!finished) {
-			process.destroyForcibly();
-			throw new RuntimeException("GraphicsMagick process timed out.");
-		}
+	private long recordStage(String stage, Timer.Sample sample) {
+		return sample.stop(meterRegistry.timer(STAGE_TIMER, "stage", stage));
+	}
 
-		if (process.exitValue() != 0) {
-			throw new RuntimeException("GraphicsMagick process failed with exit code " + process.exitValue());
-		}
+	private void recordBytesSaved(String format, long bytesSaved) {
+		DistributionSummary.builder(BYTES_SAVED_SUMMARY)
+				.baseUnit("bytes")
+				.tag("format", format)
+				.register(meterRegistry)
+				.record(bytesSaved);
 	}
 
 	private double getMultiplier(String unit) {
@@ -248,4 +297,13 @@ public class ImageProcessingWorker {
 			}
 		}
 	}
+
+	private void cleanupWorkspace(Path workspace) {
+		if (workspace == null) return;
+		try {
+			FileUtils.deleteDirectory(workspace.toFile());
+		} catch (IOException e) {
+			log.warn("Could not delete job workspace: {}", workspace, e);
+		}
+	}
 }
\ No newline at end of file
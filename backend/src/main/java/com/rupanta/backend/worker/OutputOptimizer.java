@@ -0,0 +1,118 @@
+package com.rupanta.backend.worker;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lossless post-encode pass over a processed output: strips or whitelists metadata,
+ * rewrites JPEGs with optimized Huffman tables (optionally progressive) through jpegtran
+ * and recompresses PNGs at the highest zlib level with adaptive filtering. The result only
+ * replaces the encoded file when it is smaller, and a failing optimizer never fails a job.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutputOptimizer {
+
+	private final GraphicsMagickExecutor graphicsMagickExecutor;
+
+	@Value("${rupanta.output.optimization.enabled:true}")
+	private boolean enabled;
+
+	// strip | keep-icc | keep
+	@Value("${rupanta.output.optimization.metadata:keep-icc}")
+	private String metadata;
+
+	@Value("${rupanta.output.optimization.progressive:true}")
+	private boolean progressive;
+
+	@Value("${rupanta.output.optimization.jpegtran:jpegtran}")
+	private String jpegtran;
+
+	/**
+	 * Optimizes the file in place.
+	 *
+	 * @return the number of bytes saved, 0 if the file was left as it was
+	 */
+	public long optimize(File file, String outputFormat, Path workspace) throws InterruptedException {
+		if (!enabled) return 0;
+
+		String format = outputFormat == null ? "jpg" : outputFormat.toLowerCase();
+		boolean jpeg = "jpg".equals(format) || "jpeg".equals(format);
+		if (!jpeg && !"png".equals(format)) return 0;
+
+		File optimized = null;
+		try {
+			optimized = Files.createTempFile(workspace, "rupanta-opt-", "." + format).toFile();
+			if (jpeg) {
+				graphicsMagickExecutor.runProcess("jpegtran", jpegtranCommand(file, optimized), Map.of());
+			} else {
+				graphicsMagickExecutor.convert(pngArguments(file, optimized), workspace);
+			}
+
+			long saved = file.length() - optimized.length();
+			if (optimized.length() == 0 || saved <= 0) {
+				return 0;
+			}
+			Files.move(optimized.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			log.info("Optimized {} output {}: saved {} bytes", format, file.getName(), saved);
+			return saved;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Skipping output optimization for {}: {}", file.getName(), e.getMessage());
+			return 0;
+		} finally {
+			if (optimized != null && optimized.exists() && !optimized.delete()) {
+				log.warn("Could not delete temporary file: {}", optimized.getAbsolutePath());
+			}
+		}
+	}
+
+	private List<String> jpegtranCommand(File input, File output) {
+		List<String> command = new ArrayList<>();
+		command.add(jpegtran);
+		command.add("-copy");
+		command.add(switch (metadata) {
+			case "strip" -> "none";
+			case "keep" -> "all";
+			default -> "icc";
+		});
+		command.add("-optimize");
+		if (progressive) {
+			command.add("-progressive");
+		}
+		command.add("-outfile");
+		command.add(output.getAbsolutePath());
+		command.add(input.getAbsolutePath());
+		return command;
+	}
+
+	private List<String> pngArguments(File input, File output) {
+		List<String> arguments = new ArrayList<>();
+		arguments.add(input.getAbsolutePath());
+		if ("strip".equals(metadata)) {
+			arguments.add("+profile");
+			arguments.add("*");
+		} else if (!"keep".equals(metadata)) {
+			for (String profile : List.of("EXIF", "XMP", "IPTC", "8BIM")) {
+				arguments.add("+profile");
+				arguments.add(profile);
+			}
+		}
+		// PNG quality is zlib level * 10 + filter: level 9 with adaptive filtering, still lossless
+		arguments.add("-quality");
+		arguments.add("95");
+		arguments.add(output.getAbsolutePath());
+		return arguments;
+	}
+}
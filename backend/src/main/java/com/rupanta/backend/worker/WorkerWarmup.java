@@ -0,0 +1,93 @@
+package com.rupanta.backend.worker;
+
+import com.rupanta.backend.dto.ImageProcessRequest;
+import com.rupanta.backend.exception.CompressionException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs a few synthetic images through the worker's render path at boot, so the first real
+ * job doesn't pay for gm's library loading and a cold JIT. Runners finish before the app
+ * reports readiness, so a node only takes traffic once this is done. A node that can't run
+ * gm fails to start instead of failing every job. The renders don't count toward the output
+ * metrics.
+ */
+@Component
+@ConditionalOnProperty(name = "rupanta.worker.warmup.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class WorkerWarmup implements ApplicationRunner {
+
+	private final ImageProcessingWorker imageProcessingWorker;
+	private final GraphicsMagickExecutor graphicsMagickExecutor;
+
+	@Value("${rupanta.worker.warmup.iterations:3}")
+	private int iterations;
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		long start = System.nanoTime();
+		Path workspace = Files.createTempDirectory("rupanta-warmup-");
+
+		try {
+			File input = workspace.resolve("warmup-input.jpg").toFile();
+			graphicsMagickExecutor.convert(List.of("-size", "1600x1200", "plasma:fractal", input.getAbsolutePath()), workspace);
+
+			for (int i = 0; i < iterations; i++) {
+				for (ImageProcessRequest params : warmupRequests()) {
+					try {
+						File output = imageProcessingWorker.render(params, input, workspace, false);
+						if (!output.equals(input)) {
+							FileUtils.deleteQuietly(output);
+						}
+					} catch (CompressionException e) {
+						// The search path still ran, which is all the warm-up needs
+						log.debug("Warm-up target size not reachable: {}", e.getMessage());
+					}
+				}
+			}
+		} finally {
+			FileUtils.deleteQuietly(workspace.toFile());
+		}
+
+		log.info("Worker warm-up finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+	}
+
+	// One request per render mode: resize to JPEG, target size search and PNG conversion
+	private List<ImageProcessRequest> warmupRequests() {
+		ImageProcessRequest resize = new ImageProcessRequest();
+		resize.setOutputFormat("jpg");
+		ImageProcessRequest.ResizeParams resizeParams = new ImageProcessRequest.ResizeParams();
+		resizeParams.setWidth(800);
+		resizeParams.setHeight(600);
+		resize.setResize(resizeParams);
+
+		ImageProcessRequest targetSize = new ImageProcessRequest();
+		targetSize.setOutputFormat("jpg");
+		ImageProcessRequest.CompressionParams compression = new ImageProcessRequest.CompressionParams();
+		compression.setMinSize(20.0);
+		compression.setMaxSize(400.0);
+		compression.setUnit("KiB");
+		targetSize.setCompression(compression);
+
+		ImageProcessRequest png = new ImageProcessRequest();
+		png.setOutputFormat("png");
+		ImageProcessRequest.ResizeParams pngResize = new ImageProcessRequest.ResizeParams();
+		pngResize.setWidth(400);
+		pngResize.setHeight(300);
+		png.setResize(pngResize);
+
+		return List.of(resize, targetSize, png);
+	}
+}
@@ -0,0 +1,20 @@
+-- Schema as previously generated by hibernate ddl-auto. Databases that already
+-- have these tables are baselined at this version and skip this script.
+
+CREATE TABLE users (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    created_at    TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE image_jobs (
+    id                 UUID PRIMARY KEY,
+    user_id            BIGINT REFERENCES users (id),
+    status             VARCHAR(255) NOT NULL CHECK (status IN ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED')),
+    raw_file_key       VARCHAR(255),
+    processed_file_key VARCHAR(255),
+    job_parameters     JSONB,
+    created_at         TIMESTAMP(6) WITH TIME ZONE,
+    completed_at       TIMESTAMP(6) WITH TIME ZONE
+);
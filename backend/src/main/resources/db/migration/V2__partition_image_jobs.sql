@@ -0,0 +1,83 @@
+-- Range-partition image_jobs by month of created_at.
+-- The partition key has to be part of the primary key, so the key becomes (id, created_at).
+
+ALTER TABLE image_jobs RENAME TO image_jobs_legacy;
+ALTER INDEX IF EXISTS image_jobs_pkey RENAME TO image_jobs_legacy_pkey;
+
+CREATE TABLE image_jobs (
+    id                 UUID                        NOT NULL,
+    user_id            BIGINT REFERENCES users (id),
+    status             VARCHAR(255)                NOT NULL CHECK (status IN ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED')),
+    raw_file_key       VARCHAR(255),
+    processed_file_key VARCHAR(255),
+    job_parameters     JSONB,
+    created_at         TIMESTAMP(6) WITH TIME ZONE NOT NULL DEFAULT now(),
+    completed_at       TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows outside the pre-created months so inserts never fail. It should stay empty;
+-- ImageJobPartitionMaintainer keeps monthly partitions created ahead of time.
+CREATE TABLE image_jobs_default PARTITION OF image_jobs DEFAULT;
+
+-- Creates the partition covering the (UTC) month of month_start, if it does not exist yet.
+CREATE OR REPLACE FUNCTION create_image_jobs_partition(month_start DATE) RETURNS TEXT AS $$
+DECLARE
+    from_ts        TIMESTAMPTZ := date_trunc('month', month_start::TIMESTAMP) AT TIME ZONE 'UTC';
+    to_ts          TIMESTAMPTZ := (date_trunc('month', month_start::TIMESTAMP) + INTERVAL '1 month') AT TIME ZONE 'UTC';
+    partition_name TEXT        := 'image_jobs_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF image_jobs FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, from_ts, to_ts);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drops monthly partitions that end on or before the cutoff. Returns the number dropped.
+CREATE OR REPLACE FUNCTION drop_image_jobs_partitions_before(cutoff DATE) RETURNS INTEGER AS $$
+DECLARE
+    part    RECORD;
+    dropped   INTEGER := 0;
+BEGIN
+    FOR part IN
+        SELECT child.relname AS name
+        FROM pg_inherits
+                 JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                 JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.relname = 'image_jobs'
+          AND child.relname ~ '^image_jobs_[0-9]{4}_[0-9]{2}$'
+    LOOP
+        IF to_date(substring(part.name FROM 12), 'YYYY_MM') + INTERVAL '1 month' <= cutoff THEN
+            EXECUTE format('DROP TABLE %I', part.name);
+            dropped := dropped + 1;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    month := date_trunc('month', COALESCE((SELECT min(created_at) FROM image_jobs_legacy), now()) AT TIME ZONE 'UTC')::DATE;
+    WHILE month <= (now() AT TIME ZONE 'UTC')::DATE + INTERVAL '2 months' LOOP
+        PERFORM create_image_jobs_partition(month);
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END;
+$$;
+
+INSERT INTO image_jobs (id, user_id, status, raw_file_key, processed_file_key, job_parameters, created_at, completed_at)
+SELECT id, user_id, status, raw_file_key, processed_file_key, job_parameters, COALESCE(created_at, now()), completed_at
+FROM image_jobs_legacy;
+
+DROP TABLE image_jobs_legacy;
+
+-- Lookups by id probe the primary key index of each partition.
+-- Queue claim: oldest PENDING jobs first. Partial, so it stays as small as the backlog.
+CREATE INDEX idx_image_jobs_pending_created_at ON image_jobs (created_at) WHERE status = 'PENDING';
+-- Status scans, e.g. jobs stuck in PROCESSING or failed jobs in a time window.
+CREATE INDEX idx_image_jobs_status_created_at ON image_jobs (status, created_at);
+-- Per-user listing, newest first.
+CREATE INDEX idx_image_jobs_user_created_at ON image_jobs (user_id, created_at DESC);
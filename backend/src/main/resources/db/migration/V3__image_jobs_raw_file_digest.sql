@@ -0,0 +1,3 @@
+-- Size and SHA-256 of the uploaded image, computed while it is streamed to storage.
+ALTER TABLE image_jobs ADD COLUMN raw_file_size BIGINT;
+ALTER TABLE image_jobs ADD COLUMN raw_file_sha256 VARCHAR(64);
@@ -0,0 +1,33 @@
+-- A month that has no partition yet sends its rows to image_jobs_default, and once it holds
+-- any, CREATE TABLE ... PARTITION OF for that month fails for good ("updated partition
+-- constraint for default partition would be violated"). Creating a partition now moves that
+-- month's rows out of the default partition first.
+CREATE OR REPLACE FUNCTION create_image_jobs_partition(month_start DATE) RETURNS TEXT AS $$
+DECLARE
+    from_ts        TIMESTAMPTZ := date_trunc('month', month_start::TIMESTAMP) AT TIME ZONE 'UTC';
+    to_ts          TIMESTAMPTZ := (date_trunc('month', month_start::TIMESTAMP) + INTERVAL '1 month') AT TIME ZONE 'UTC';
+    partition_name TEXT        := 'image_jobs_' || to_char(month_start, 'YYYY_MM');
+    moved          BIGINT;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM image_jobs_default WHERE created_at >= from_ts AND created_at < to_ts) THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF image_jobs FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, from_ts, to_ts);
+        RETURN partition_name;
+    END IF;
+
+    -- Keeps new rows for the month from landing in the default partition until it is attached
+    LOCK TABLE image_jobs_default IN ACCESS EXCLUSIVE MODE;
+    EXECUTE format('CREATE TABLE %I (LIKE image_jobs INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM image_jobs_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM moved', from_ts, to_ts, partition_name);
+    GET DIAGNOSTICS moved = ROW_COUNT;
+    EXECUTE format('ALTER TABLE image_jobs ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, from_ts, to_ts);
+    RAISE WARNING 'Moved % image_jobs rows from the default partition into %', moved, partition_name;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
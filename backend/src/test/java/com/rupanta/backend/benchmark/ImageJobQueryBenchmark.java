@@ -0,0 +1,201 @@
+package com.rupanta.backend.benchmark;
+
+import com.rupanta.backend.entity.JobIdGenerator;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads image_jobs with tens of millions of rows in a dedicated schema of a local Postgres
+ * and checks that status lookup and job claim latency stay flat as the table grows. Each
+ * batch of rows is a further month of history in a partition of its own, so the partition
+ * count grows with the table the way it does in production.
+ *
+ * Run with: mvn test -Pbenchmark -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/rupanta
+ * -Dbenchmark.db.user=... -Dbenchmark.db.password=... [-Dbenchmark.rows=20000000]
+ */
+@Tag("benchmark")
+class ImageJobQueryBenchmark {
+
+	private static final String SCHEMA = "rupanta_benchmark";
+	private static final int LOAD_BATCH_ROWS = 1_000_000;
+	private static final int SAMPLES = 2_000;
+
+	// What ImageJobRepository.findJob runs: the id's timestamp names the partition
+	private static final String STATUS_LOOKUP_SQL = "SELECT status, processed_file_key FROM image_jobs WHERE id = ? AND created_at = ?";
+	private static final String CLAIM_SQL = "SELECT id FROM image_jobs WHERE status = 'PENDING' ORDER BY created_at LIMIT 10 FOR UPDATE SKIP LOCKED";
+
+	private final String url = System.getProperty("benchmark.db.url");
+	private final String user = System.getProperty("benchmark.db.user", "postgres");
+	private final String password = System.getProperty("benchmark.db.password", "postgres");
+	private final long totalRows = Long.getLong("benchmark.rows", 20_000_000L);
+	private final double maxP99Growth = Double.parseDouble(System.getProperty("benchmark.max-p99-growth", "3.0"));
+
+	@Test
+	void statusLookupAndClaimLatencyStayFlat() throws SQLException {
+		Assumptions.assumeTrue(url != null, "benchmark.db.url is not set");
+
+		Flyway flyway = Flyway.configure()
+				.dataSource(url, user, password)
+				.schemas(SCHEMA)
+				.cleanDisabled(false)
+				.load();
+		flyway.clean();
+		flyway.migrate();
+
+		try (Connection connection = DriverManager.getConnection(url, user, password)) {
+			connection.setSchema(SCHEMA);
+			prepare(connection);
+
+			List<long[]> checkpoints = new ArrayList<>();
+			long loaded = 0;
+			long nextCheckpoint = Math.min(LOAD_BATCH_ROWS, totalRows);
+			YearMonth month = YearMonth.now(ZoneOffset.UTC);
+
+			while (loaded < totalRows) {
+				long batch = Math.min(LOAD_BATCH_ROWS, totalRows - loaded);
+				load(connection, month, batch);
+				loaded += batch;
+				month = month.minusMonths(1);
+
+				if (loaded >= nextCheckpoint || loaded == totalRows) {
+					analyze(connection);
+					long[] lookupP50P99 = measureStatusLookup(connection);
+					long[] claimP50P99 = measureClaim(connection);
+					System.out.printf("rows=%,d partitions=%d lookup p50=%dus p99=%dus claim p50=%dus p99=%dus%n",
+							loaded, countPartitions(connection), lookupP50P99[0], lookupP50P99[1], claimP50P99[0], claimP50P99[1]);
+					checkpoints.add(new long[]{loaded, lookupP50P99[1], claimP50P99[1]});
+					nextCheckpoint *= 2;
+				}
+			}
+
+			long[] first = checkpoints.get(0);
+			long[] last = checkpoints.get(checkpoints.size() - 1);
+			assertTrue(last[1] <= first[1] * maxP99Growth,
+					String.format("Status lookup p99 grew from %dus at %,d rows to %dus at %,d rows", first[1], first[0], last[1], last[0]));
+			assertTrue(last[2] <= first[2] * maxP99Growth,
+					String.format("Job claim p99 grew from %dus at %,d rows to %dus at %,d rows", first[2], first[0], last[2], last[0]));
+		}
+	}
+
+	private void prepare(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("INSERT INTO users (email, password_hash, created_at) " +
+					"SELECT 'bench-' || g || '@rupanta.com', 'N/A', now() FROM generate_series(1, 1000) g");
+			// Same layout as JobIdGenerator: Unix milliseconds in the first 48 bits, version 7
+			statement.execute("CREATE FUNCTION uuid_v7(ts TIMESTAMPTZ) RETURNS UUID AS $$ " +
+					"SELECT encode(set_bit(set_bit(overlay(uuid_send(gen_random_uuid()) " +
+					"placing substring(int8send(floor(extract(epoch FROM ts) * 1000)::BIGINT) FROM 3) FROM 1 FOR 6), 52, 1), 53, 1), 'hex')::UUID " +
+					"$$ LANGUAGE sql VOLATILE");
+		}
+	}
+
+	// One month of mostly finished jobs, with a small live backlog of PENDING ones.
+	private void load(Connection connection, YearMonth month, long rows) throws SQLException {
+		OffsetDateTime from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+		OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+		OffsetDateTime to = now.isBefore(from.plusMonths(1)) ? now : from.plusMonths(1);
+
+		try (PreparedStatement statement = connection.prepareStatement("SELECT create_image_jobs_partition(?)")) {
+			statement.setObject(1, month.atDay(1));
+			statement.execute();
+		}
+
+		try (PreparedStatement statement = connection.prepareStatement(
+				"INSERT INTO image_jobs (id, user_id, status, raw_file_key, processed_file_key, job_parameters, created_at, completed_at) " +
+				"SELECT uuid_v7(created_at), 1 + (g % 1000), status, 'raw_uploads/' || g, " +
+				"       CASE WHEN status = 'COMPLETED' THEN 'processed-files/' || g END, " +
+				"       '{\"outputFormat\":\"jpg\"}'::jsonb, created_at, " +
+				"       CASE WHEN status IN ('COMPLETED', 'FAILED') THEN created_at + INTERVAL '2 seconds' END " +
+				"FROM (SELECT g, date_trunc('milliseconds', from_ts + random() * (to_ts - from_ts)) AS created_at, " +
+				"             CASE WHEN r < 0.001 THEN 'PENDING' WHEN r < 0.02 THEN 'FAILED' ELSE 'COMPLETED' END AS status " +
+				"      FROM (SELECT g, random() AS r FROM generate_series(1, ?) g) seeds " +
+				"      CROSS JOIN (SELECT ?::TIMESTAMPTZ AS from_ts, ?::TIMESTAMPTZ AS to_ts) bounds) generated")) {
+			statement.setLong(1, rows);
+			statement.setObject(2, from);
+			statement.setObject(3, to);
+			statement.executeUpdate();
+		}
+	}
+
+	private void analyze(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("ANALYZE image_jobs");
+		}
+	}
+
+	private int countPartitions(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM pg_inherits WHERE inhparent = 'image_jobs'::regclass")) {
+			resultSet.next();
+			return resultSet.getInt(1);
+		}
+	}
+
+	private long[] measureStatusLookup(Connection connection) throws SQLException {
+		List<UUID> ids = new ArrayList<>(SAMPLES);
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("SELECT id FROM image_jobs TABLESAMPLE SYSTEM (1) ORDER BY random() LIMIT " + SAMPLES)) {
+			while (resultSet.next()) {
+				ids.add(resultSet.getObject(1, UUID.class));
+			}
+		}
+
+		long[] latencies = new long[ids.size()];
+		try (PreparedStatement statement = connection.prepareStatement(STATUS_LOOKUP_SQL)) {
+			for (int i = 0; i < ids.size(); i++) {
+				statement.setObject(1, ids.get(i));
+				statement.setObject(2, OffsetDateTime.ofInstant(JobIdGenerator.createdAtOf(ids.get(i)).orElseThrow(), ZoneOffset.UTC));
+				long start = System.nanoTime();
+				try (ResultSet resultSet = statement.executeQuery()) {
+					assertTrue(resultSet.next(), "No job found for " + ids.get(i));
+				}
+				latencies[i] = (System.nanoTime() - start) / 1_000;
+			}
+		}
+		return p50P99(latencies);
+	}
+
+	private long[] measureClaim(Connection connection) throws SQLException {
+		long[] latencies = new long[SAMPLES];
+		connection.setAutoCommit(false);
+		try (PreparedStatement statement = connection.prepareStatement(CLAIM_SQL)) {
+			for (int i = 0; i < SAMPLES; i++) {
+				long start = System.nanoTime();
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						resultSet.getObject(1, UUID.class);
+					}
+				}
+				latencies[i] = (System.nanoTime() - start) / 1_000;
+				connection.rollback();
+			}
+		} finally {
+			connection.setAutoCommit(true);
+		}
+		return p50P99(latencies);
+	}
+
+	private long[] p50P99(long[] latencies) {
+		long[] sorted = latencies.clone();
+		Arrays.sort(sorted);
+		return new long[]{sorted[sorted.length / 2], sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.99) - 1)]};
+	}
+}
@@ -0,0 +1,36 @@
+package com.rupanta.backend.config;
+
+import com.rupanta.backend.controller.JobDownloadController;
+import com.rupanta.backend.service.ImageJobPartitionMaintainer;
+import com.rupanta.backend.service.SyncSubmissionAdmission;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkerStartupConfigTest {
+
+	private final LazyInitializationExcludeFilter filter = WorkerStartupConfig.eagerStartupBeans();
+
+	@Test
+	void keepsApplicationBeansEager() {
+		assertTrue(isExcluded(JobDownloadController.class));
+		assertTrue(isExcluded(SyncSubmissionAdmission.class));
+		assertTrue(isExcluded(ImageJobPartitionMaintainer.class));
+		assertTrue(isExcluded(FlywayMigrationInitializer.class));
+	}
+
+	@Test
+	void leavesFrameworkBeansLazy() {
+		assertFalse(isExcluded(RequestMappingHandlerAdapter.class));
+		assertFalse(filter.isExcluded("unknown", new RootBeanDefinition(), null));
+	}
+
+	private boolean isExcluded(Class<?> type) {
+		return filter.isExcluded("bean", new RootBeanDefinition(type), type);
+	}
+}
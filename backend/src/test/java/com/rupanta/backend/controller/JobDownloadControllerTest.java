@@ -0,0 +1,130 @@
+package com.rupanta.backend.controller;
+
+import com.rupanta.backend.dto.JobDownload;
+import com.rupanta.backend.service.ImageJobService;
+import com.rupanta.backend.service.LocalOutputCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class JobDownloadControllerTest {
+
+	private static final UUID JOB_ID = UUID.randomUUID();
+
+	@TempDir
+	Path tempDir;
+
+	private final ImageJobService imageJobService = mock(ImageJobService.class);
+	private MockMvc mockMvc;
+	private byte[] bytes;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		bytes = new byte[1000];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		Path file = Files.write(tempDir.resolve("output.jpg"), bytes);
+		when(imageJobService.getJobDownload(JOB_ID)).thenReturn(Optional.of(new JobDownload(file, "https://s3.example/output.jpg", "image/jpeg")));
+
+		mockMvc = MockMvcBuilders.standaloneSetup(new JobDownloadController(imageJobService, mock(LocalOutputCache.class))).build();
+	}
+
+	@Test
+	void servesWholeFile() throws Exception {
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+				.andExpect(content().contentType("image/jpeg"))
+				.andExpect(content().bytes(bytes));
+	}
+
+	@Test
+	void servesSingleRange() throws Exception {
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID).header(HttpHeaders.RANGE, "bytes=100-199"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/1000"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+				.andExpect(content().bytes(Arrays.copyOfRange(bytes, 100, 200)));
+	}
+
+	@Test
+	void servesOpenEndedAndSuffixRanges() throws Exception {
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID).header(HttpHeaders.RANGE, "bytes=900-"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 900-999/1000"))
+				.andExpect(content().bytes(Arrays.copyOfRange(bytes, 900, 1000)));
+
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID).header(HttpHeaders.RANGE, "bytes=-10"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 990-999/1000"))
+				.andExpect(content().bytes(Arrays.copyOfRange(bytes, 990, 1000)));
+	}
+
+	@Test
+	void rejectsRangePastTheEnd() throws Exception {
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID).header(HttpHeaders.RANGE, "bytes=5000-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID).header(HttpHeaders.RANGE, "bytes=1000-1200"))
+				.andExpect(status().isRequestedRangeNotSatisfiable());
+	}
+
+	@Test
+	void rejectsMalformedRange() throws Exception {
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID).header(HttpHeaders.RANGE, "bytes=500-100"))
+				.andExpect(status().isRequestedRangeNotSatisfiable());
+	}
+
+	@Test
+	void handsRangeToSendfileWhenSupported() throws Exception {
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID)
+						.requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)
+						.header(HttpHeaders.RANGE, "bytes=100-199"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+				.andExpect(request().attribute("org.apache.tomcat.sendfile.filename", tempDir.resolve("output.jpg").toAbsolutePath().toString()))
+				.andExpect(request().attribute("org.apache.tomcat.sendfile.start", 100L))
+				.andExpect(request().attribute("org.apache.tomcat.sendfile.end", 200L))
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void redirectsWhenCachedFileKeepsDisappearing() throws Exception {
+		Files.delete(tempDir.resolve("output.jpg"));
+
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID))
+				.andExpect(status().isFound())
+				.andExpect(redirectedUrl("https://s3.example/output.jpg"));
+	}
+
+	@Test
+	void redirectsWhenNotCached() throws Exception {
+		when(imageJobService.getJobDownload(JOB_ID)).thenReturn(Optional.of(new JobDownload(null, "https://s3.example/output.jpg", "image/jpeg")));
+
+		mockMvc.perform(get("/api/v1/jobs/{jobId}/download", JOB_ID))
+				.andExpect(status().isFound())
+				.andExpect(redirectedUrl("https://s3.example/output.jpg"));
+	}
+}
@@ -0,0 +1,46 @@
+package com.rupanta.backend.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobIdGeneratorTest {
+
+	@Test
+	void idCarriesItsCreationTime() {
+		Instant createdAt = Instant.parse("2026-03-14T15:09:26.535Z");
+
+		UUID id = JobIdGenerator.newId(createdAt);
+
+		assertEquals(7, id.version());
+		assertEquals(2, id.variant());
+		assertEquals(Optional.of(createdAt), JobIdGenerator.createdAtOf(id));
+	}
+
+	@Test
+	void generatorSetsCreatedAtFromTheId() {
+		ImageJob job = new ImageJob();
+
+		UUID id = (UUID) new JobIdGenerator().generate(null, job, null, null);
+
+		assertEquals(Optional.of(job.getCreatedAt()), JobIdGenerator.createdAtOf(id));
+	}
+
+	@Test
+	void randomIdsCarryNoTime() {
+		assertTrue(JobIdGenerator.createdAtOf(UUID.randomUUID()).isEmpty());
+	}
+
+	@Test
+	void idsSortByCreationTime() {
+		UUID earlier = JobIdGenerator.newId(Instant.parse("2026-01-31T23:59:59.999Z"));
+		UUID later = JobIdGenerator.newId(Instant.parse("2026-02-01T00:00:00Z"));
+
+		assertTrue(earlier.toString().compareTo(later.toString()) < 0);
+	}
+}
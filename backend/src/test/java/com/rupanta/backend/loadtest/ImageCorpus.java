@@ -0,0 +1,122 @@
+package com.rupanta.backend.loadtest;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Images to submit during a load test, held in memory so reading them doesn't skew the
+ * numbers. Uses the jpg/png files of a directory when one is given, otherwise generates
+ * photo-like JPEGs from phone-camera thumbnails up to 12 MP.
+ */
+class ImageCorpus {
+
+	private static final int[][] GENERATED_SIZES = {{640, 480}, {1280, 960}, {1920, 1080}, {3024, 4032}, {4000, 3000}};
+
+	private final List<Image> images;
+
+	private ImageCorpus(List<Image> images) {
+		if (images.isEmpty()) {
+			throw new IllegalStateException("Image corpus is empty");
+		}
+		this.images = images;
+	}
+
+	static ImageCorpus load(String directory) {
+		return directory == null || directory.isBlank() ? generate() : fromDirectory(Path.of(directory));
+	}
+
+	Image next() {
+		return images.get(ThreadLocalRandom.current().nextInt(images.size()));
+	}
+
+	int size() {
+		return images.size();
+	}
+
+	private static ImageCorpus fromDirectory(Path directory) {
+		try (Stream<Path> files = Files.list(directory)) {
+			List<Image> images = new ArrayList<>();
+			for (Path file : files.sorted().toList()) {
+				String name = file.getFileName().toString();
+				String lower = name.toLowerCase(Locale.ROOT);
+				if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) {
+					images.add(new Image(name, "image/jpeg", Files.readAllBytes(file)));
+				} else if (lower.endsWith(".png")) {
+					images.add(new Image(name, "image/png", Files.readAllBytes(file)));
+				}
+			}
+			return new ImageCorpus(images);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read image corpus from " + directory, e);
+		}
+	}
+
+	private static ImageCorpus generate() {
+		Random random = new Random(42);
+		List<Image> images = new ArrayList<>();
+		for (int[] size : GENERATED_SIZES) {
+			images.add(new Image("generated-" + size[0] + "x" + size[1] + ".jpg", "image/jpeg", photoLike(size[0], size[1], random)));
+		}
+		return new ImageCorpus(images);
+	}
+
+	// Smooth gradients, hard edges and a noisy region, so the encoder sees the mix of flat
+	// and detailed areas a photo has rather than something trivially compressible.
+	private static byte[] photoLike(int width, int height, Random random) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		graphics.setPaint(new GradientPaint(0, 0, randomColor(random), width, height, randomColor(random)));
+		graphics.fillRect(0, 0, width, height);
+
+		for (int i = 0; i < 40; i++) {
+			graphics.setColor(randomColor(random));
+			graphics.fillOval(random.nextInt(width), random.nextInt(height), random.nextInt(width / 4) + 1, random.nextInt(height / 4) + 1);
+		}
+		graphics.dispose();
+
+		for (int y = height / 2; y < height; y++) {
+			for (int x = 0; x < width / 2; x++) {
+				int rgb = image.getRGB(x, y);
+				int noise = random.nextInt(48) - 24;
+				int r = clamp(((rgb >> 16) & 0xff) + noise);
+				int g = clamp(((rgb >> 8) & 0xff) + noise);
+				int b = clamp((rgb & 0xff) + noise);
+				image.setRGB(x, y, (r << 16) | (g << 8) | b);
+			}
+		}
+
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			ImageIO.write(image, "jpg", out);
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static Color randomColor(Random random) {
+		return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+	}
+
+	private static int clamp(int value) {
+		return Math.max(0, Math.min(255, value));
+	}
+
+	record Image(String name, String contentType, byte[] bytes) {
+	}
+}
@@ -0,0 +1,301 @@
+package com.rupanta.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test of the /api/v1/jobs flow. Starts the app in-process against the
+ * postgres and minio services from docker-compose.yml, submits images at a fixed rate,
+ * polls each job until it settles and reports throughput, latency percentiles and error
+ * rates per endpoint, plus the app's own per-stage timings.
+ *
+ * Run with: docker compose --profile loadtest up -d, export DB_NAME/DB_USER/DB_PASSWORD,
+ * then mvn test -Ploadtest [-Dloadtest.duration-seconds=60] [-Dloadtest.submit-rate=5]
+ * [-Dloadtest.poll-interval-ms=250] [-Dloadtest.mix=resize:5,target-size:3,png:2]
+ * [-Dloadtest.corpus=/path/to/images]. gm has to be on the PATH.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"aws.region=us-east-1",
+		"aws.s3.endpoint=${loadtest.s3.endpoint:http://localhost:9000}",
+		"aws.credentials.access-key=${loadtest.s3.access-key:rupanta}",
+		"aws.credentials.secret-key=${loadtest.s3.secret-key:rupanta-secret}",
+		"aws.s3.bucket-name=${loadtest.s3.bucket:rupanta-loadtest}",
+		"spring.jpa.show-sql=false",
+		"management.metrics.distribution.percentiles.rupanta.job.stage=0.5,0.95,0.99"
+})
+class ImageJobLoadTest {
+
+	private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60));
+	private static final double SUBMIT_RATE = Double.parseDouble(System.getProperty("loadtest.submit-rate", "5"));
+	private static final Duration POLL_INTERVAL = Duration.ofMillis(Long.getLong("loadtest.poll-interval-ms", 250));
+	private static final Duration COMPLETION_TIMEOUT = Duration.ofSeconds(Long.getLong("loadtest.completion-timeout-seconds", 120));
+	private static final String MIX = System.getProperty("loadtest.mix", "resize:5,target-size:3,png:2");
+	private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+	private static final String SUBMIT_ENDPOINT = "POST /api/v1/jobs";
+	private static final String STATUS_ENDPOINT = "GET /api/v1/jobs/{jobId}";
+
+	private static final Map<String, String> PARAMS_PRESETS = Map.of(
+			"resize", "{\"outputFormat\":\"jpg\",\"resize\":{\"width\":800,\"height\":600},\"compression\":{\"quality\":80}}",
+			"target-size", "{\"outputFormat\":\"jpg\",\"compression\":{\"minSize\":50,\"maxSize\":100,\"unit\":\"KiB\"}}",
+			"png", "{\"outputFormat\":\"png\",\"resize\":{\"width\":512,\"height\":512}}"
+	);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private MeterRegistry appMeterRegistry;
+
+	@Autowired
+	private S3Client s3Client;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${aws.s3.bucket-name}")
+	private String bucketName;
+
+	private final MeterRegistry results = new SimpleMeterRegistry();
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+	private final AtomicInteger inFlightJobs = new AtomicInteger();
+	private final List<String> weightedPresets = new ArrayList<>();
+	private ImageCorpus corpus;
+
+	@Test
+	void jobsFlowUnderLoad() throws InterruptedException {
+		ensureBucket();
+		corpus = ImageCorpus.load(System.getProperty("loadtest.corpus"));
+		parseMix();
+
+		System.out.printf("Load test: %.1f submissions/s for %ds, polling every %dms, mix %s, %d corpus images%n",
+				SUBMIT_RATE, DURATION.toSeconds(), POLL_INTERVAL.toMillis(), MIX, corpus.size());
+
+		ScheduledFuture<?> submissions = scheduler.scheduleAtFixedRate(this::submit, 0, (long) (1_000_000_000L / SUBMIT_RATE), TimeUnit.NANOSECONDS);
+		Thread.sleep(DURATION.toMillis());
+		submissions.cancel(false);
+
+		long drainDeadline = System.nanoTime() + COMPLETION_TIMEOUT.plusSeconds(10).toNanos();
+		while (inFlightJobs.get() > 0 && System.nanoTime() < drainDeadline) {
+			Thread.sleep(100);
+		}
+		scheduler.shutdownNow();
+
+		report();
+
+		double requestErrorRate = errorRate(SUBMIT_ENDPOINT) + errorRate(STATUS_ENDPOINT);
+		double jobFailureRate = jobs("completed") == 0 ? 1.0 : 1.0 - jobs("completed") / submittedJobs();
+		assertTrue(requestErrorRate <= MAX_ERROR_RATE, String.format("Request error rate %.4f over %.4f", requestErrorRate, MAX_ERROR_RATE));
+		assertTrue(jobFailureRate <= MAX_ERROR_RATE, String.format("Job failure rate %.4f over %.4f", jobFailureRate, MAX_ERROR_RATE));
+	}
+
+	private void submit() {
+		ImageCorpus.Image image = corpus.next();
+		String preset = weightedPresets.get(ThreadLocalRandom.current().nextInt(weightedPresets.size()));
+		HttpRequest request = submitRequest(image, PARAMS_PRESETS.get(preset));
+
+		long submittedAt = System.nanoTime();
+		inFlightJobs.incrementAndGet();
+		httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+			String jobId = recordRequest(SUBMIT_ENDPOINT, submittedAt, response, error, 202) ? field(response.body(), "jobId") : null;
+			if (jobId != null) {
+				schedulePoll(UUID.fromString(jobId), submittedAt);
+			} else {
+				finishJob("rejected");
+			}
+		});
+	}
+
+	private void schedulePoll(UUID jobId, long submittedAt) {
+		scheduler.schedule(() -> poll(jobId, submittedAt), POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private void poll(UUID jobId, long submittedAt) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl() + "/" + jobId)).GET().build();
+
+		long start = System.nanoTime();
+		httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+			String status = recordRequest(STATUS_ENDPOINT, start, response, error, 200) ? field(response.body(), "status") : null;
+
+			if ("COMPLETED".equals(status)) {
+				Timer.builder("loadtest.time_to_completed")
+						.publishPercentiles(0.5, 0.95, 0.99)
+						.register(results)
+						.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+				finishJob("completed");
+			} else if ("FAILED".equals(status)) {
+				finishJob("failed");
+			} else if (System.nanoTime() - submittedAt > COMPLETION_TIMEOUT.toNanos()) {
+				finishJob("timed_out");
+			} else if (!scheduler.isShutdown()) {
+				schedulePoll(jobId, submittedAt);
+			}
+		});
+	}
+
+	private boolean recordRequest(String endpoint, long start, HttpResponse<String> response, Throwable error, int expectedStatus) {
+		Timer.builder("loadtest.request")
+				.tag("endpoint", endpoint)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(results)
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		boolean ok = error == null && response.statusCode() == expectedStatus;
+		if (!ok) {
+			results.counter("loadtest.request.errors", "endpoint", endpoint).increment();
+		}
+		return ok;
+	}
+
+	private void finishJob(String outcome) {
+		results.counter("loadtest.jobs", "outcome", outcome).increment();
+		inFlightJobs.decrementAndGet();
+	}
+
+	private void report() {
+		double seconds = DURATION.toMillis() / 1000.0;
+		System.out.println();
+		System.out.println("Endpoint                      requests    req/s   p50 ms   p95 ms   p99 ms   errors");
+		for (String endpoint : List.of(SUBMIT_ENDPOINT, STATUS_ENDPOINT)) {
+			Timer timer = results.find("loadtest.request").tag("endpoint", endpoint).timer();
+			if (timer == null) continue;
+			System.out.printf("%-28s %9d %8.1f %s %7.2f%%%n", endpoint, timer.count(), timer.count() / seconds,
+					percentiles(timer), errorRate(endpoint) * 100);
+		}
+
+		System.out.println();
+		System.out.printf("Jobs: submitted=%d completed=%d failed=%d timed_out=%d rejected=%d, %.2f completed/s%n",
+				(long) submittedJobs(), (long) jobs("completed"), (long) jobs("failed"), (long) jobs("timed_out"),
+				(long) jobs("rejected"), jobs("completed") / seconds);
+		Timer timeToCompleted = results.find("loadtest.time_to_completed").timer();
+		if (timeToCompleted != null) {
+			System.out.printf("Time to COMPLETED %37s%n", percentiles(timeToCompleted));
+		}
+
+		System.out.println();
+		System.out.println("Pipeline stage                   count            p50 ms   p95 ms   p99 ms   failures");
+		for (Timer stage : appMeterRegistry.find("rupanta.job.stage").timers()) {
+			String name = stage.getId().getTag("stage");
+			Counter failures = appMeterRegistry.find("rupanta.job.failures").tag("stage", name).counter();
+			System.out.printf("%-28s %9d %17s %10d%n", name, stage.count(), percentiles(stage),
+					failures == null ? 0 : (long) failures.count());
+		}
+	}
+
+	private String percentiles(Timer timer) {
+		StringBuilder formatted = new StringBuilder();
+		for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+			formatted.append(String.format(" %8.1f", value.value(TimeUnit.MILLISECONDS)));
+		}
+		return formatted.toString();
+	}
+
+	private double errorRate(String endpoint) {
+		Timer timer = results.find("loadtest.request").tag("endpoint", endpoint).timer();
+		Counter errors = results.find("loadtest.request.errors").tag("endpoint", endpoint).counter();
+		if (timer == null || timer.count() == 0 || errors == null) return 0;
+		return errors.count() / timer.count();
+	}
+
+	private double jobs(String outcome) {
+		Counter counter = results.find("loadtest.jobs").tag("outcome", outcome).counter();
+		return counter == null ? 0 : counter.count();
+	}
+
+	private double submittedJobs() {
+		return jobs("completed") + jobs("failed") + jobs("timed_out") + jobs("rejected");
+	}
+
+	private HttpRequest submitRequest(ImageCorpus.Image image, String paramsJson) {
+		String boundary = "rupanta-" + UUID.randomUUID();
+		ByteArrayOutputStream body = new ByteArrayOutputStream(image.bytes().length + 1024);
+		try {
+			body.write(("--" + boundary + "\r\n" +
+					"Content-Disposition: form-data; name=\"params\"\r\n" +
+					"Content-Type: application/json\r\n\r\n" +
+					paramsJson + "\r\n" +
+					"--" + boundary + "\r\n" +
+					"Content-Disposition: form-data; name=\"image\"; filename=\"" + image.name() + "\"\r\n" +
+					"Content-Type: " + image.contentType() + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+			body.write(image.bytes());
+			body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return HttpRequest.newBuilder(URI.create(baseUrl()))
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+	}
+
+	private String field(String json, String name) {
+		try {
+			JsonNode node = objectMapper.readTree(json).get(name);
+			return node == null ? null : node.asText();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void parseMix() {
+		for (String entry : MIX.split(",")) {
+			String[] presetAndWeight = entry.trim().split(":");
+			if (!PARAMS_PRESETS.containsKey(presetAndWeight[0])) {
+				throw new IllegalArgumentException("Unknown preset in loadtest.mix: " + presetAndWeight[0] + ", expected one of " + PARAMS_PRESETS.keySet());
+			}
+			int weight = presetAndWeight.length > 1 ? Integer.parseInt(presetAndWeight[1]) : 1;
+			for (int i = 0; i < weight; i++) {
+				weightedPresets.add(presetAndWeight[0]);
+			}
+		}
+	}
+
+	private void ensureBucket() {
+		try {
+			s3Client.headBucket(builder -> builder.bucket(bucketName));
+		} catch (NoSuchBucketException e) {
+			s3Client.createBucket(builder -> builder.bucket(bucketName));
+		}
+	}
+
+	private String baseUrl() {
+		return "http://localhost:" + port + "/api/v1/jobs";
+	}
+}
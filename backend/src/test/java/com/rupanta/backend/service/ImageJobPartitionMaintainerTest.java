@@ -0,0 +1,81 @@
+package com.rupanta.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ImageJobPartitionMaintainerTest {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private ImageJobPartitionMaintainer maintainer;
+
+	@BeforeEach
+	void setUp() {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		maintainer = new ImageJobPartitionMaintainer(jdbcTemplate, new TransactionTemplate(transactionManager));
+		ReflectionTestUtils.setField(maintainer, "maintenanceEnabled", true);
+		ReflectionTestUtils.setField(maintainer, "monthsAhead", 2);
+	}
+
+	@Test
+	void createsPartitionsUnderTheAdvisoryLock() {
+		maintainer.maintainPartitions();
+
+		InOrder order = inOrder(transactionManager, jdbcTemplate);
+		order.verify(transactionManager).getTransaction(any());
+		order.verify(jdbcTemplate).execute(eq("SELECT pg_advisory_xact_lock(hashtext('rupanta.image_jobs.partitions'))"));
+		order.verify(jdbcTemplate, times(3)).queryForObject(eq("SELECT create_image_jobs_partition(?)"), eq(String.class), any(Object[].class));
+		order.verify(transactionManager).commit(any());
+	}
+
+	@Test
+	void recoversMonthsStrandedInTheDefaultPartition() {
+		LocalDate stranded = LocalDate.of(2025, 11, 1);
+		when(jdbcTemplate.queryForList(anyString(), eq(LocalDate.class))).thenReturn(List.of(stranded));
+
+		maintainer.maintainPartitions();
+
+		verify(jdbcTemplate).queryForObject(eq("SELECT create_image_jobs_partition(?)"), eq(String.class), eq(Date.valueOf(stranded)));
+		verify(jdbcTemplate).queryForObject(eq("SELECT count(*) FROM image_jobs_default"), eq(Long.class));
+	}
+
+	@Test
+	void doesNothingWhenDisabled() {
+		ReflectionTestUtils.setField(maintainer, "maintenanceEnabled", false);
+
+		maintainer.maintainPartitions();
+
+		verifyNoInteractions(transactionManager, jdbcTemplate);
+	}
+
+	@Test
+	void failureDoesNotEscapeTheStartupListener() {
+		when(jdbcTemplate.queryForObject(anyString(), eq(String.class), any(Object[].class)))
+				.thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"pg_type_typname_nsp_index\""));
+
+		assertDoesNotThrow(maintainer::maintainPartitions);
+		verify(transactionManager).rollback(any());
+	}
+}
@@ -0,0 +1,129 @@
+package com.rupanta.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rupanta.backend.dto.JobStatusResponse;
+import com.rupanta.backend.entity.ImageJob;
+import com.rupanta.backend.enums.JobStatus;
+import com.rupanta.backend.repository.ImageJobRepository;
+import com.rupanta.backend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageJobServiceImplTest {
+
+	private static final UUID JOB_ID = UUID.randomUUID();
+
+	private final ImageJobRepository imageJobRepository = mock(ImageJobRepository.class);
+	private final JobCompletionNotifier jobCompletionNotifier = new JobCompletionNotifier();
+	private ThreadPoolTaskExecutor jobCompletionExecutor;
+	private ImageJobServiceImpl imageJobService;
+
+	@BeforeEach
+	void setUp() {
+		jobCompletionExecutor = new ThreadPoolTaskExecutor();
+		jobCompletionExecutor.setThreadNamePrefix("job-completion-");
+		jobCompletionExecutor.initialize();
+
+		imageJobService = new ImageJobServiceImpl(imageJobRepository, mock(UserRepository.class), mock(S3StorageService.class),
+				mock(LocalOutputCache.class), mock(JobEventPublisher.class), jobCompletionNotifier, jobCompletionExecutor,
+				new ObjectMapper(), new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		jobCompletionExecutor.shutdown();
+	}
+
+	@Test
+	void returnsJobsThatSettledBeforeTheWaiterRegistered() throws Exception {
+		when(imageJobRepository.findJob(JOB_ID)).thenReturn(Optional.of(job(JobStatus.FAILED)));
+
+		Optional<JobStatusResponse> result = imageJobService.awaitCompletion(JOB_ID, Duration.ofSeconds(5)).get(0, TimeUnit.SECONDS);
+
+		assertEquals(JobStatus.FAILED, result.orElseThrow().getStatus());
+		assertTrue(waiters().isEmpty());
+	}
+
+	@Test
+	void seesCompletionBetweenRegisteringAndReReading() throws Exception {
+		// The worker completes the job while the re-read still returns the stale PENDING row
+		when(imageJobRepository.findJob(JOB_ID))
+				.thenAnswer(invocation -> {
+					jobCompletionNotifier.complete(JOB_ID, JobStatus.COMPLETED);
+					return Optional.of(job(JobStatus.PENDING));
+				})
+				.thenReturn(Optional.of(job(JobStatus.COMPLETED)));
+
+		Optional<JobStatusResponse> result = imageJobService.awaitCompletion(JOB_ID, Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+		assertEquals(JobStatus.COMPLETED, result.orElseThrow().getStatus());
+		assertTrue(waiters().isEmpty());
+	}
+
+	@Test
+	void looksUpTheSettledJobOffTheCompletingThread() throws Exception {
+		AtomicReference<String> lookupThread = new AtomicReference<>();
+		when(imageJobRepository.findJob(JOB_ID))
+				.thenReturn(Optional.of(job(JobStatus.PROCESSING)))
+				.thenAnswer(invocation -> {
+					lookupThread.set(Thread.currentThread().getName());
+					return Optional.of(job(JobStatus.COMPLETED));
+				});
+
+		var future = imageJobService.awaitCompletion(JOB_ID, Duration.ofSeconds(5));
+		Thread worker = new Thread(() -> jobCompletionNotifier.complete(JOB_ID, JobStatus.COMPLETED), "image-worker-1");
+		worker.start();
+		worker.join();
+
+		assertEquals(JobStatus.COMPLETED, future.get(5, TimeUnit.SECONDS).orElseThrow().getStatus());
+		assertTrue(lookupThread.get().startsWith("job-completion-"), lookupThread.get());
+	}
+
+	@Test
+	void unregistersTheWaiterOnTimeout() throws Exception {
+		when(imageJobRepository.findJob(JOB_ID)).thenReturn(Optional.of(job(JobStatus.PENDING)));
+
+		Optional<JobStatusResponse> result = imageJobService.awaitCompletion(JOB_ID, Duration.ofMillis(50)).get(5, TimeUnit.SECONDS);
+
+		assertTrue(result.isEmpty());
+		assertTrue(waiters().isEmpty());
+	}
+
+	@Test
+	void unregistersTheWaiterWhenTheReReadFails() {
+		when(imageJobRepository.findJob(JOB_ID)).thenReturn(Optional.empty());
+
+		assertThrows(EntityNotFoundException.class, () -> imageJobService.awaitCompletion(JOB_ID, Duration.ofSeconds(5)));
+		assertTrue(waiters().isEmpty());
+	}
+
+	private ImageJob job(JobStatus status) {
+		ImageJob job = new ImageJob();
+		job.setId(JOB_ID);
+		job.setStatus(status);
+		job.setProcessedFileKey(status == JobStatus.COMPLETED ? "processed-files/output.jpg" : null);
+		return job;
+	}
+
+	private Map<?, ?> waiters() {
+		return (Map<?, ?>) ReflectionTestUtils.getField(jobCompletionNotifier, "waiters");
+	}
+}
@@ -0,0 +1,133 @@
+package com.rupanta.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalOutputCacheTest {
+
+	@TempDir
+	Path directory;
+
+	private final List<LocalOutputCache> caches = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		caches.forEach(LocalOutputCache::close);
+	}
+
+	@Test
+	void leavesFilesItDidNotCreate() throws IOException {
+		Path foreign = Files.writeString(directory.resolve("unrelated.txt"), "keep me");
+		Path foreignDirectory = Files.createDirectories(directory.resolve("cache-not-ours"));
+
+		start();
+
+		assertTrue(Files.exists(foreign));
+		assertTrue(Files.exists(foreignDirectory));
+	}
+
+	@Test
+	void removesCachesLeftByExitedProcesses() throws IOException {
+		Path abandoned = Files.createDirectories(directory.resolve("cache-123"));
+		Files.createFile(abandoned.resolve(".rupanta-output-cache.lock"));
+		Files.writeString(abandoned.resolve("output.jpg"), "stale");
+
+		start();
+
+		assertFalse(Files.exists(abandoned));
+	}
+
+	@Test
+	void keepsCachesOfRunningProcesses() throws IOException {
+		LocalOutputCache first = start();
+		first.put("processed-files/a.jpg", Files.writeString(directory.resolve("a.jpg"), "output").toFile());
+
+		LocalOutputCache second = start();
+
+		Optional<Path> cached = first.get("processed-files/a.jpg");
+		assertTrue(cached.isPresent());
+		assertEquals("output", Files.readString(cached.get()));
+		assertTrue(second.get("processed-files/a.jpg").isEmpty());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedOverBudget() throws IOException {
+		LocalOutputCache cache = start();
+		cache.put("a.jpg", Files.write(directory.resolve("a.jpg"), new byte[600]).toFile());
+		cache.put("b.jpg", Files.write(directory.resolve("b.jpg"), new byte[300]).toFile());
+		cache.get("a.jpg");
+		cache.put("c.jpg", Files.write(directory.resolve("c.jpg"), new byte[300]).toFile());
+
+		assertTrue(cache.get("a.jpg").isPresent());
+		assertTrue(cache.get("b.jpg").isEmpty());
+		assertTrue(cache.get("c.jpg").isPresent());
+	}
+
+	@Test
+	void keepsEvictedFilesForTheGracePeriod() throws IOException {
+		LocalOutputCache cache = start();
+		cache.put("a.jpg", Files.write(directory.resolve("a.jpg"), new byte[600]).toFile());
+		Path evicted = cache.get("a.jpg").orElseThrow();
+		cache.put("b.jpg", Files.write(directory.resolve("b.jpg"), new byte[600]).toFile());
+
+		cache.deleteEvictedFiles();
+		assertTrue(cache.get("a.jpg").isEmpty());
+		assertTrue(Files.exists(evicted));
+
+		ReflectionTestUtils.setField(cache, "evictionGracePeriod", Duration.ZERO);
+		cache.deleteEvictedFiles();
+		assertFalse(Files.exists(evicted));
+	}
+
+	@Test
+	void keepsFilesPutBackAfterTheirEviction() throws IOException {
+		LocalOutputCache cache = start();
+		ReflectionTestUtils.setField(cache, "evictionGracePeriod", Duration.ZERO);
+		cache.put("a.jpg", Files.write(directory.resolve("a.jpg"), new byte[600]).toFile());
+		cache.put("b.jpg", Files.write(directory.resolve("b.jpg"), new byte[600]).toFile());
+		cache.put("a.jpg", Files.write(directory.resolve("a.jpg"), new byte[300]).toFile());
+
+		cache.deleteEvictedFiles();
+
+		Path cached = cache.get("a.jpg").orElseThrow();
+		assertEquals(300, Files.size(cached));
+	}
+
+	@Test
+	void removesItsDirectoryOnShutdown() throws IOException {
+		start();
+		caches.forEach(LocalOutputCache::close);
+		caches.clear();
+
+		try (var children = Files.list(directory)) {
+			assertEquals(0, children.count());
+		}
+	}
+
+	private LocalOutputCache start() throws IOException {
+		LocalOutputCache cache = new LocalOutputCache(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "directory", directory.toString());
+		ReflectionTestUtils.setField(cache, "maxSize", DataSize.ofBytes(1000));
+		ReflectionTestUtils.setField(cache, "evictionGracePeriod", Duration.ofMinutes(1));
+		cache.init();
+		caches.add(cache);
+		return cache;
+	}
+}
@@ -0,0 +1,125 @@
+package com.rupanta.backend.service;
+
+import com.rupanta.backend.dto.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class S3StorageServiceTest {
+
+	private static final int MB = 1024 * 1024;
+
+	@TempDir
+	Path workspace;
+
+	private final S3Client s3Client = mock(S3Client.class);
+	private S3StorageService storageService;
+
+	@BeforeEach
+	void setUp() {
+		storageService = new S3StorageService(s3Client, mock(S3Presigner.class));
+		ReflectionTestUtils.setField(storageService, "bucketName", "bucket");
+		ReflectionTestUtils.setField(storageService, "multipartPartSize", DataSize.ofMegabytes(5));
+		storageService.validatePartSize();
+	}
+
+	@Test
+	void uploadsSmallInputInOneRequest() throws Exception {
+		byte[] bytes = randomBytes(50 * 1024);
+
+		StoredObject stored = storageService.uploadStream("raw_uploads", "a.jpg", "image/jpeg", new ByteArrayInputStream(bytes));
+
+		ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+		verify(s3Client).putObject(any(PutObjectRequest.class), body.capture());
+		assertEquals(bytes.length, body.getValue().optionalContentLength().orElseThrow());
+		assertEquals(bytes.length, stored.getSize());
+		assertEquals(sha256(bytes), stored.getSha256());
+		verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+	}
+
+	@Test
+	void splitsLargeInputIntoParts() throws Exception {
+		when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+				.thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload").build());
+		when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+				.thenReturn(UploadPartResponse.builder().eTag("etag").build());
+		byte[] bytes = randomBytes(12 * MB);
+
+		StoredObject stored = storageService.uploadStream("raw_uploads", "a.jpg", "image/jpeg", new ByteArrayInputStream(bytes));
+
+		ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+		verify(s3Client, times(3)).uploadPart(parts.capture(), any(RequestBody.class));
+		assertEquals(List.of(5L * MB, 5L * MB, 2L * MB), parts.getAllValues().stream().map(UploadPartRequest::contentLength).toList());
+		verify(s3Client).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+		assertEquals(bytes.length, stored.getSize());
+		assertEquals(sha256(bytes), stored.getSha256());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void streamsDownloadToFile() throws Exception {
+		byte[] bytes = randomBytes(256 * 1024);
+		when(s3Client.getObject(any(GetObjectRequest.class), any(ResponseTransformer.class))).thenAnswer(invocation -> {
+			ResponseTransformer<GetObjectResponse, ?> transformer = invocation.getArgument(1);
+			return transformer.transform(GetObjectResponse.builder().build(), AbortableInputStream.create(new ByteArrayInputStream(bytes)));
+		});
+
+		File file = storageService.downloadFile("raw_uploads/a.jpg", workspace);
+
+		assertEquals(workspace, file.toPath().getParent());
+		assertArrayEquals(bytes, Files.readAllBytes(file.toPath()));
+		verify(s3Client, never()).getObjectAsBytes(any(GetObjectRequest.class));
+	}
+
+	@Test
+	void rejectsPartSizeBelowS3Minimum() {
+		ReflectionTestUtils.setField(storageService, "multipartPartSize", DataSize.ofMegabytes(1));
+
+		assertThrows(IllegalStateException.class, storageService::validatePartSize);
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(7).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static String sha256(byte[] bytes) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+	}
+}
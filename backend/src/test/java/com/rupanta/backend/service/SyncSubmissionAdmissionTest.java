@@ -0,0 +1,89 @@
+package com.rupanta.backend.service;
+
+import com.rupanta.backend.dto.ImageProcessRequest;
+import com.rupanta.backend.dto.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+class SyncSubmissionAdmissionTest {
+
+	private static final StoredObject ONE_MB = new StoredObject("raw_uploads/a.jpg", 1024 * 1024, "sha");
+
+	private ThreadPoolTaskExecutor executor;
+	private SyncSubmissionAdmission admission;
+
+	@BeforeEach
+	void setUp() {
+		executor = spy(new ThreadPoolTaskExecutor());
+		executor.setCorePoolSize(2);
+		doReturn(0).when(executor).getQueueSize();
+		doReturn(0).when(executor).getActiveCount();
+
+		admission = new SyncSubmissionAdmission(executor);
+		ReflectionTestUtils.setField(admission, "maxWait", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(admission, "maxWaiters", 2);
+		ReflectionTestUtils.setField(admission, "baseCost", Duration.ofMillis(150));
+		ReflectionTestUtils.setField(admission, "costPerMb", Duration.ofMillis(200));
+		ReflectionTestUtils.setField(admission, "queuedJobCost", Duration.ofSeconds(1));
+	}
+
+	@Test
+	void admitsJobsThatFitTheWait() {
+		assertEquals(Optional.of(Duration.ofSeconds(1)), admission.admit(ONE_MB, standard(), 1000));
+		assertEquals(Optional.of(Duration.ofSeconds(10)), admission.admit(ONE_MB, standard(), 60_000));
+	}
+
+	@Test
+	void rejectsJobsEstimatedPastTheWait() {
+		// 150ms + 10 encodes of 200ms
+		assertTrue(admission.admit(ONE_MB, targetSize(), 2000).isEmpty());
+		assertTrue(admission.admit(ONE_MB, targetSize(), 2200).isPresent());
+		assertTrue(admission.admit(ONE_MB, standard(), 0).isEmpty());
+	}
+
+	@Test
+	void countsTheJobsAheadInTheWorkerQueue() {
+		doReturn(2).when(executor).getActiveCount();
+		assertTrue(admission.admit(ONE_MB, standard(), 1000).isEmpty());
+		assertTrue(admission.admit(ONE_MB, standard(), 1400).isPresent());
+
+		doReturn(4).when(executor).getQueueSize();
+		assertTrue(admission.admit(ONE_MB, standard(), 3000).isEmpty());
+	}
+
+	@Test
+	void limitsWaitersUntilReleased() {
+		assertTrue(admission.admit(ONE_MB, standard(), 1000).isPresent());
+		assertTrue(admission.admit(ONE_MB, standard(), 1000).isPresent());
+		assertTrue(admission.admit(ONE_MB, standard(), 1000).isEmpty());
+
+		admission.release();
+		assertTrue(admission.admit(ONE_MB, standard(), 1000).isPresent());
+	}
+
+	private ImageProcessRequest standard() {
+		ImageProcessRequest params = new ImageProcessRequest();
+		params.setOutputFormat("jpg");
+		return params;
+	}
+
+	private ImageProcessRequest targetSize() {
+		ImageProcessRequest params = standard();
+		ImageProcessRequest.CompressionParams compression = new ImageProcessRequest.CompressionParams();
+		compression.setMinSize(20.0);
+		compression.setMaxSize(200.0);
+		compression.setUnit("KiB");
+		params.setCompression(compression);
+		return params;
+	}
+}
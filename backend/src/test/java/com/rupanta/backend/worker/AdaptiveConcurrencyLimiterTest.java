@@ -0,0 +1,166 @@
+package com.rupanta.backend.worker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final long MB = 1024 * 1024;
+	private static final long MS = 1_000_000;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ThreadPoolTaskExecutor executor;
+	private AdaptiveConcurrencyLimiter limiter;
+	private double cpu;
+
+	@BeforeEach
+	void setUp() {
+		executor = spy(new ThreadPoolTaskExecutor());
+		executor.setCorePoolSize(4);
+		executor.setMaxPoolSize(8);
+		doReturn(0).when(executor).getQueueSize();
+
+		limiter = new AdaptiveConcurrencyLimiter(executor, meterRegistry);
+		ReflectionTestUtils.setField(limiter, "enabled", true);
+		ReflectionTestUtils.setField(limiter, "minLimit", 1);
+		ReflectionTestUtils.setField(limiter, "targetCpu", 0.85);
+		ReflectionTestUtils.setField(limiter, "latencyTolerance", 2.0);
+		ReflectionTestUtils.setField(limiter, "backoff", 0.75);
+		ReflectionTestUtils.setField(limiter, "cooldown", Duration.ZERO);
+		limiter.cpuLoad = () -> cpu;
+		cpu = 0.5;
+		limiter.init();
+	}
+
+	@Test
+	void growsWhileJobsQueueAndThereIsHeadroom() {
+		doReturn(3).when(executor).getQueueSize();
+
+		for (int i = 0; i < 200; i++) {
+			limiter.onJobProcessed("standard", 100 * MS, MB);
+		}
+
+		assertEquals(8, executor.getCorePoolSize());
+		assertEquals(8.0, meterRegistry.get("rupanta.worker.concurrency.limit").gauge().value());
+	}
+
+	@Test
+	void holdsWithoutQueuedJobs() {
+		for (int i = 0; i < 50; i++) {
+			limiter.onJobProcessed("standard", 100 * MS, MB);
+		}
+
+		assertEquals(4, executor.getCorePoolSize());
+	}
+
+	@Test
+	void backsOffWhenLatencyStretches() {
+		for (int i = 0; i < 30; i++) {
+			limiter.onJobProcessed("standard", 100 * MS, MB);
+		}
+		for (int i = 0; i < 3; i++) {
+			limiter.onJobProcessed("standard", 300 * MS, MB);
+		}
+
+		assertEquals(3, executor.getCorePoolSize());
+		assertEquals(1.0, meterRegistry.get("rupanta.worker.concurrency.adjustments")
+				.tag("direction", "decrease").tag("reason", "latency").counter().count());
+	}
+
+	@Test
+	void oneFastJobDoesNotBecomeTheBaseline() {
+		for (int i = 0; i < 30; i++) {
+			limiter.onJobProcessed("standard", 100 * MS, MB);
+		}
+		limiter.onJobProcessed("standard", MS / 10, MB);
+		for (int i = 0; i < 30; i++) {
+			limiter.onJobProcessed("standard", 110 * MS, MB);
+		}
+
+		assertEquals(4, executor.getCorePoolSize());
+	}
+
+	@Test
+	void oneSlowJobIsNotCongestion() {
+		for (int i = 0; i < 30; i++) {
+			limiter.onJobProcessed("standard", 100 * MS, MB);
+		}
+		limiter.onJobProcessed("standard", 1_000 * MS, MB);
+		limiter.onJobProcessed("standard", 100 * MS, MB);
+
+		assertEquals(4, executor.getCorePoolSize());
+	}
+
+	@Test
+	void shiftInRenderModeMixIsNotCongestion() {
+		for (int i = 0; i < 30; i++) {
+			limiter.onJobProcessed("standard", 100 * MS, MB);
+			limiter.onJobProcessed("target_size", 1_000 * MS, MB);
+		}
+		for (int i = 0; i < 30; i++) {
+			limiter.onJobProcessed("target_size", 1_000 * MS, MB);
+		}
+
+		assertEquals(4, executor.getCorePoolSize());
+	}
+
+	@Test
+	void normalizesBySize() {
+		for (int i = 0; i < 30; i++) {
+			limiter.onJobProcessed("standard", 100 * MS, MB);
+			limiter.onJobProcessed("standard", 1_000 * MS, 10 * MB);
+		}
+
+		assertEquals(4, executor.getCorePoolSize());
+	}
+
+	@Test
+	void backsOffWhenCpuSaturates() {
+		doReturn(3).when(executor).getQueueSize();
+		cpu = 0.95;
+
+		limiter.onJobProcessed("standard", 100 * MS, MB);
+
+		assertEquals(3, executor.getCorePoolSize());
+	}
+
+	@Test
+	void backsOffOnGmTimeoutDownToMin() {
+		for (int i = 0; i < 10; i++) {
+			limiter.onGmTimeout();
+		}
+
+		assertEquals(1, executor.getCorePoolSize());
+	}
+
+	@Test
+	void decreasesAtMostOncePerCooldown() {
+		ReflectionTestUtils.setField(limiter, "cooldown", Duration.ofMinutes(1));
+		limiter.init();
+
+		limiter.onGmTimeout();
+		limiter.onGmTimeout();
+		limiter.onGmTimeout();
+
+		assertEquals(3, executor.getCorePoolSize());
+	}
+
+	@Test
+	void leavesPoolAloneWhenDisabled() {
+		ReflectionTestUtils.setField(limiter, "enabled", false);
+
+		limiter.onGmTimeout();
+
+		assertEquals(4, executor.getCorePoolSize());
+	}
+}
@@ -0,0 +1,54 @@
+package com.rupanta.backend.worker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class GraphicsMagickExecutorTest {
+
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter = mock(AdaptiveConcurrencyLimiter.class);
+	private GraphicsMagickExecutor executor;
+
+	@BeforeEach
+	void setUp() {
+		executor = new GraphicsMagickExecutor(new ThreadPoolTaskExecutor(), concurrencyLimiter);
+		ReflectionTestUtils.setField(executor, "timeout", Duration.ofMillis(500));
+	}
+
+	@Test
+	void killsProcessThatOutlivesTheTimeout() {
+		RuntimeException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(RuntimeException.class,
+				() -> executor.runProcess("sleep", List.of("sh", "-c", "echo started; sleep 30"), Map.of())));
+
+		assertEquals("sleep process timed out.", e.getMessage());
+		verify(concurrencyLimiter).onGmTimeout();
+	}
+
+	@Test
+	void reportsNonZeroExit() {
+		RuntimeException e = assertThrows(RuntimeException.class,
+				() -> executor.runProcess("sh", List.of("sh", "-c", "echo failing; exit 3"), Map.of()));
+
+		assertEquals("sh process failed with exit code 3", e.getMessage());
+		verify(concurrencyLimiter, never()).onGmTimeout();
+	}
+
+	@Test
+	void drainsLargeOutputWithoutBlocking() {
+		assertTimeoutPreemptively(Duration.ofSeconds(10),
+				() -> assertDoesNotThrow(() -> executor.runProcess("sh", List.of("sh", "-c", "yes | head -n 50000"), Map.of())));
+	}
+}
@@ -0,0 +1,70 @@
+package com.rupanta.backend.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rupanta.backend.dto.ImageProcessRequest;
+import com.rupanta.backend.repository.ImageJobRepository;
+import com.rupanta.backend.service.JobEventPublisher;
+import com.rupanta.backend.service.LocalOutputCache;
+import com.rupanta.backend.service.S3StorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageProcessingWorkerTest {
+
+	private static final String BYTES_SAVED = "rupanta.output.optimization.bytes_saved";
+
+	@TempDir
+	Path workspace;
+
+	private final OutputOptimizer outputOptimizer = mock(OutputOptimizer.class);
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ImageProcessingWorker worker;
+	private File input;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		worker = new ImageProcessingWorker(mock(ImageJobRepository.class), mock(S3StorageService.class), mock(LocalOutputCache.class),
+				mock(JobEventPublisher.class), new ObjectMapper(), mock(GraphicsMagickExecutor.class), outputOptimizer,
+				meterRegistry, mock(AdaptiveConcurrencyLimiter.class));
+		input = Files.write(workspace.resolve("input.jpg"), new byte[1000]).toFile();
+		when(outputOptimizer.optimize(any(File.class), eq("jpg"), eq(workspace))).thenReturn(120L);
+	}
+
+	@Test
+	void recordsBytesSavedForJobs() throws Exception {
+		worker.render(resize(), input, workspace, true);
+
+		assertEquals(120.0, meterRegistry.get(BYTES_SAVED).tag("format", "jpg").summary().totalAmount());
+	}
+
+	@Test
+	void keepsWarmUpRendersOutOfTheMetrics() throws Exception {
+		worker.render(resize(), input, workspace, false);
+
+		assertNull(meterRegistry.find(BYTES_SAVED).summary());
+	}
+
+	private ImageProcessRequest resize() {
+		ImageProcessRequest params = new ImageProcessRequest();
+		params.setOutputFormat("jpg");
+		ImageProcessRequest.ResizeParams resize = new ImageProcessRequest.ResizeParams();
+		resize.setWidth(800);
+		resize.setHeight(600);
+		params.setResize(resize);
+		return params;
+	}
+}
@@ -0,0 +1,175 @@
+package com.rupanta.backend.worker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class OutputOptimizerTest {
+
+	@TempDir
+	Path workspace;
+
+	private final GraphicsMagickExecutor graphicsMagickExecutor = mock(GraphicsMagickExecutor.class);
+	private OutputOptimizer optimizer;
+	private File output;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		optimizer = new OutputOptimizer(graphicsMagickExecutor);
+		ReflectionTestUtils.setField(optimizer, "enabled", true);
+		ReflectionTestUtils.setField(optimizer, "metadata", "keep-icc");
+		ReflectionTestUtils.setField(optimizer, "progressive", true);
+		ReflectionTestUtils.setField(optimizer, "jpegtran", "jpegtran");
+		output = Files.write(workspace.resolve("output.jpg"), new byte[1000]).toFile();
+	}
+
+	@Test
+	void jpegtranKeepsOnlyIccByDefault() throws Exception {
+		assertEquals(List.of("jpegtran", "-copy", "icc", "-optimize", "-progressive", "-outfile"), jpegtranCommand().subList(0, 6));
+	}
+
+	@Test
+	void jpegtranCopyModeFollowsMetadataSetting() throws Exception {
+		ReflectionTestUtils.setField(optimizer, "metadata", "strip");
+		assertEquals("none", jpegtranCommand().get(2));
+
+		ReflectionTestUtils.setField(optimizer, "metadata", "keep");
+		assertEquals("all", jpegtranCommand().get(2));
+	}
+
+	@Test
+	void jpegtranBaselineWhenNotProgressive() throws Exception {
+		ReflectionTestUtils.setField(optimizer, "progressive", false);
+
+		assertFalse(jpegtranCommand().contains("-progressive"));
+	}
+
+	@Test
+	void pngDropsNonColorProfilesAtLosslessMaximumCompression() throws Exception {
+		File png = Files.write(workspace.resolve("output.png"), new byte[1000]).toFile();
+
+		optimizer.optimize(png, "png", workspace);
+
+		List<String> arguments = capturedConvertArguments();
+		assertEquals(List.of(png.getAbsolutePath(), "+profile", "EXIF", "+profile", "XMP", "+profile", "IPTC", "+profile", "8BIM", "-quality", "95"),
+				arguments.subList(0, arguments.size() - 1));
+	}
+
+	@Test
+	void pngStripRemovesAllProfiles() throws Exception {
+		ReflectionTestUtils.setField(optimizer, "metadata", "strip");
+		File png = Files.write(workspace.resolve("output.png"), new byte[1000]).toFile();
+
+		optimizer.optimize(png, "png", workspace);
+
+		assertEquals(List.of("+profile", "*", "-quality", "95"), capturedConvertArguments().subList(1, 5));
+	}
+
+	@Test
+	void replacesOutputWhenSmaller() throws Exception {
+		byte[] smaller = new byte[600];
+		smaller[0] = 1;
+		jpegtranWrites(smaller);
+
+		long saved = optimizer.optimize(output, "jpg", workspace);
+
+		assertEquals(400, saved);
+		assertArrayEquals(smaller, Files.readAllBytes(output.toPath()));
+		assertEquals(List.of(output.toPath()), listWorkspace());
+	}
+
+	@Test
+	void keepsOutputWhenNotSmaller() throws Exception {
+		jpegtranWrites(new byte[1200]);
+
+		long saved = optimizer.optimize(output, "jpg", workspace);
+
+		assertEquals(0, saved);
+		assertEquals(1000, output.length());
+		assertEquals(List.of(output.toPath()), listWorkspace());
+	}
+
+	@Test
+	void keepsOutputWhenToolWritesNothing() throws Exception {
+		assertEquals(0, optimizer.optimize(output, "jpg", workspace));
+		assertEquals(1000, output.length());
+	}
+
+	@Test
+	void toolFailureSkipsOptimizationWithoutFailing() throws Exception {
+		doThrow(new RuntimeException("jpegtran process failed with exit code 1"))
+				.when(graphicsMagickExecutor).runProcess(eq("jpegtran"), anyList(), anyMap());
+
+		assertEquals(0, optimizer.optimize(output, "jpg", workspace));
+		assertEquals(1000, output.length());
+		assertEquals(List.of(output.toPath()), listWorkspace());
+	}
+
+	@Test
+	void leavesOtherFormatsAlone() throws Exception {
+		assertEquals(0, optimizer.optimize(output, "webp", workspace));
+		verifyNoInteractions(graphicsMagickExecutor);
+	}
+
+	@Test
+	void doesNothingWhenDisabled() throws Exception {
+		ReflectionTestUtils.setField(optimizer, "enabled", false);
+
+		assertEquals(0, optimizer.optimize(output, "jpg", workspace));
+		verifyNoInteractions(graphicsMagickExecutor);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> jpegtranCommand() throws Exception {
+		optimizer.optimize(output, "jpg", workspace);
+		ArgumentCaptor<List<String>> command = ArgumentCaptor.forClass(List.class);
+		verify(graphicsMagickExecutor, atLeastOnce()).runProcess(eq("jpegtran"), command.capture(), eq(Map.of()));
+		List<String> last = command.getValue();
+		assertEquals(output.getAbsolutePath(), last.get(last.size() - 1));
+		return last;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> capturedConvertArguments() throws Exception {
+		ArgumentCaptor<List<String>> arguments = ArgumentCaptor.forClass(List.class);
+		verify(graphicsMagickExecutor).convert(arguments.capture(), eq(workspace));
+		return arguments.getValue();
+	}
+
+	private void jpegtranWrites(byte[] bytes) throws Exception {
+		doAnswer(invocation -> {
+			List<String> command = invocation.getArgument(1);
+			Files.write(Path.of(command.get(command.indexOf("-outfile") + 1)), bytes);
+			return null;
+		}).when(graphicsMagickExecutor).runProcess(eq("jpegtran"), anyList(), any());
+	}
+
+	private List<Path> listWorkspace() throws IOException {
+		try (var files = Files.list(workspace)) {
+			return files.toList();
+		}
+	}
+}